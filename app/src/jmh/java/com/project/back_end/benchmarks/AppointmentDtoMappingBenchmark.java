@@ -0,0 +1,54 @@
+package com.project.back_end.benchmarks;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+
+// Appointment -> AppointmentDTO, the same field mapping the repository's constructor expression performs
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AppointmentDtoMappingBenchmark {
+
+    @Param({ "40", "1000" })
+    public int appointmentCount;
+
+    private List<Appointment> appointments;
+
+    @Setup
+    public void setUp() {
+        Doctor doctor = Fakes.doctors(1).get(0);
+        appointments = Fakes.appointments(doctor, LocalDate.now().plusDays(1), appointmentCount);
+    }
+
+    @Benchmark
+    public List<AppointmentDTO> mapToDto() {
+        List<AppointmentDTO> dtos = new ArrayList<>(appointments.size());
+        for (Appointment a : appointments) {
+            dtos.add(new AppointmentDTO(a.getId(), a.getDoctor().getId(), a.getDoctor().getName(),
+                    a.getPatient().getId(), a.getPatient().getName(), a.getPatient().getEmail(),
+                    a.getPatient().getPhone(), a.getPatient().getAddress(), a.getAppointmentTime(), a.getStatus()));
+        }
+        return dtos;
+    }
+}
@@ -0,0 +1,61 @@
+package com.project.back_end.benchmarks;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.services.DoctorService;
+import com.project.back_end.services.SlotOccupancyIndex;
+
+// Free-slot computation for one doctor and day: warm index vs. reloading the day each call
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvailabilityBenchmark {
+
+    private DoctorService doctorService;
+    private SlotOccupancyIndex slotIndex;
+    private Long doctorId;
+    private LocalDate date;
+
+    @Setup
+    public void setUp() {
+        List<Doctor> doctors = Fakes.doctors(10);
+        Doctor doctor = doctors.get(0);
+        doctor.setAvailableTimes(List.of("09:00-10:00", "10:00-11:00", "11:00-12:00", "13:00-14:00",
+                "14:00-15:00", "15:00-16:00", "16:00-17:00", "17:00-18:00"));
+        doctorId = doctor.getId();
+        date = LocalDate.now().plusDays(1);
+        List<LocalDateTime> booked = List.of(date.atTime(10, 0), date.atTime(14, 0), date.atTime(17, 0));
+        doctorService = Fakes.doctorService(doctors, booked);
+        slotIndex = (SlotOccupancyIndex) ReflectionTestUtils.getField(doctorService, "slotIndex");
+    }
+
+    @Benchmark
+    public List<String> warmIndex() {
+        return doctorService.getDoctorAvailability(doctorId, date);
+    }
+
+    @Benchmark
+    public List<String> coldIndex() {
+        slotIndex.invalidateDoctor(doctorId);
+        return doctorService.getDoctorAvailability(doctorId, date);
+    }
+}
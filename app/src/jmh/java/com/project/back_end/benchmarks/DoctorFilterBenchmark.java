@@ -0,0 +1,61 @@
+package com.project.back_end.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.services.DoctorService;
+
+// The search index behind the doctor filter and autocomplete endpoints: AM/PM alone, all three filters, and
+// autocomplete as hit by a patient typing a name
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DoctorFilterBenchmark {
+
+    @Param({ "1000", "5000" })
+    public int doctorCount;
+
+    private DoctorService doctorService;
+
+    @Setup
+    public void setUp() {
+        doctorService = Fakes.doctorService(Fakes.doctors(doctorCount), List.of());
+    }
+
+    @Benchmark
+    public List<Doctor> indexFilterMorning() {
+        return doctorService.filterDoctors(null, null, "AM");
+    }
+
+    @Benchmark
+    public List<Doctor> indexFilterAfternoon() {
+        return doctorService.filterDoctors(null, null, "PM");
+    }
+
+    @Benchmark
+    public List<Doctor> indexFilterNameSpecialtyTime() {
+        return doctorService.filterDoctors("tor 1", "cardiology", "pm");
+    }
+
+    @Benchmark
+    public Map<String, Object> indexAutocomplete() {
+        return doctorService.autocompleteDoctors("doctor 12", 10);
+    }
+}
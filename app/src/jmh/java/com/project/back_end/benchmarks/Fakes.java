@@ -0,0 +1,169 @@
+package com.project.back_end.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.project.back_end.models.Admin;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AdminRepository;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorPurgeJobRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.services.DoctorDirectoryVersion;
+import com.project.back_end.services.DoctorSearchIndex;
+import com.project.back_end.services.DoctorService;
+import com.project.back_end.services.SlotOccupancyIndex;
+import com.project.back_end.services.TokenService;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+// In-memory stand-ins for the repositories so the benchmarks run without MySQL or Mongo
+final class Fakes {
+
+    static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+    private Fakes() {
+    }
+
+    // Repository proxy answering only the named methods; anything else fails loudly
+    @SuppressWarnings("unchecked")
+    static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            Function<Object[], Object> answer = methods.get(method.getName());
+            if (answer != null) {
+                return answer.apply(args);
+            }
+            return switch (method.getName()) {
+                case "toString" -> "Fake" + type.getSimpleName();
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            };
+        });
+    }
+
+    static List<Doctor> doctors(int count) {
+        String[] specialties = { "Cardiology", "Dermatology", "Neurology", "Pediatrics", "Orthopedics" };
+        List<Doctor> doctors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Doctor doctor = new Doctor();
+            doctor.setId((long) i + 1);
+            doctor.setName("Doctor " + i);
+            doctor.setSpecialty(specialties[i % specialties.length]);
+            doctor.setEmail("doctor" + i + "@clinic.test");
+            doctor.setPhone("0123456789");
+            doctor.setPassword("secret1");
+            // Mostly afternoon doctors so the AM filter has to look at every slot of many doctors
+            doctor.setAvailableTimes(i % 4 == 0
+                    ? List.of("09:00-10:00", "10:00-11:00", "14:00-15:00", "15:00-16:00")
+                    : List.of("13:00-14:00", "14:00-15:00", "15:00-16:00", "16:00-17:00"));
+            doctors.add(doctor);
+        }
+        return doctors;
+    }
+
+    static Patient patient(long id) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setName("Patient " + id);
+        patient.setEmail("patient" + id + "@clinic.test");
+        patient.setPhone("0123456789");
+        patient.setAddress(id + " Main Street");
+        patient.setPassword("secret1");
+        return patient;
+    }
+
+    // A busy day: one appointment per available slot for the doctor
+    static List<Appointment> appointments(Doctor doctor, LocalDate date, int count) {
+        List<Appointment> appointments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Appointment appointment = new Appointment();
+            appointment.setId((long) i + 1);
+            appointment.setDoctor(doctor);
+            appointment.setPatient(patient(i + 1));
+            appointment.setAppointmentTime(date.atTime(8, 0).plusMinutes(15L * i));
+            appointment.setStatus(i % 2);
+            appointments.add(appointment);
+        }
+        return appointments;
+    }
+
+    static TokenService tokenService(List<Doctor> doctors, long cacheTtlSeconds) {
+        Map<String, Doctor> byEmail = new HashMap<>();
+        Map<Long, Doctor> byId = new HashMap<>();
+        doctors.forEach(d -> {
+            byEmail.put(d.getEmail(), d);
+            byId.put(d.getId(), d);
+        });
+        DoctorRepository doctorRepository = repository(DoctorRepository.class, Map.of(
+                "findByEmail", args -> byEmail.get((String) args[0]),
+                "findById", args -> Optional.ofNullable(byId.get((Long) args[0]))));
+        TokenService tokenService = new TokenService(
+                repository(AdminRepository.class, Map.of("findByUsername", args -> (Admin) null)),
+                doctorRepository,
+                repository(PatientRepository.class, Map.of("findByEmail", args -> (Patient) null)));
+        ReflectionTestUtils.setField(tokenService, "secret", SECRET);
+        ReflectionTestUtils.setField(tokenService, "cacheMaxSize", 10_000);
+        ReflectionTestUtils.setField(tokenService, "cacheTtlSeconds", cacheTtlSeconds);
+        ReflectionTestUtils.invokeMethod(tokenService, "init");
+        return tokenService;
+    }
+
+    // A token with only a subject, as issued before the role claims were added
+    static String legacyToken(String email) {
+        return Jwts.builder()
+                .subject(email)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .compact();
+    }
+
+    // Loaded days never expire here, so the benchmarks measure the warm index
+    static SlotOccupancyIndex slotIndex(DoctorRepository doctorRepository, AppointmentRepository appointmentRepository) {
+        SlotOccupancyIndex slotIndex = new SlotOccupancyIndex(doctorRepository, appointmentRepository);
+        ReflectionTestUtils.setField(slotIndex, "ttlMillis", Long.MAX_VALUE);
+        ReflectionTestUtils.setField(slotIndex, "maxDays", 62);
+        return slotIndex;
+    }
+
+    // The benchmarks never write doctors, so the directory version stays put and has no database behind it
+    static DoctorDirectoryVersion directoryVersion() {
+        return new DoctorDirectoryVersion(null) {
+            @Override
+            public long read() {
+                return 0;
+            }
+        };
+    }
+
+    // DoctorService wired to fakes; appointmentTimes answers the occupancy index's per-day query
+    static DoctorService doctorService(List<Doctor> doctors, List<LocalDateTime> appointmentTimes) {
+        Map<Long, Doctor> byId = new HashMap<>();
+        doctors.forEach(d -> byId.put(d.getId(), d));
+        DoctorRepository doctorRepository = repository(DoctorRepository.class, Map.of(
+                "findWithAvailableTimesById", args -> Optional.ofNullable(byId.get((Long) args[0])),
+                "findAllWithAvailableTimes", args -> doctors));
+        AppointmentRepository appointmentRepository = repository(AppointmentRepository.class, Map.of(
+                "findAppointmentTimesByDoctorIdAndAppointmentTimeBetween", args -> appointmentTimes));
+        DoctorDirectoryVersion directoryVersion = directoryVersion();
+        return new DoctorService(doctorRepository, appointmentRepository, tokenService(doctors, 300),
+                slotIndex(doctorRepository, appointmentRepository), directoryVersion,
+                repository(DoctorPurgeJobRepository.class, Map.of()), null,
+                new DoctorSearchIndex(doctorRepository, directoryVersion));
+    }
+}
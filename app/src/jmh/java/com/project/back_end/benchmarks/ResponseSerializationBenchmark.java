@@ -0,0 +1,81 @@
+package com.project.back_end.benchmarks;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+
+// Jackson serialization of the Map<String,Object> bodies the controllers return
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    // Configured like Spring Boot's auto-configured mapper
+    private ObjectMapper objectMapper;
+    private Map<String, Object> doctorsBody;
+    private Map<String, Object> appointmentsBody;
+    private Map<String, Object> availabilityBody;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        List<Doctor> doctors = Fakes.doctors(100);
+        doctorsBody = new HashMap<>();
+        doctorsBody.put("doctors", doctors);
+
+        List<AppointmentDTO> dtos = new ArrayList<>();
+        for (Appointment a : Fakes.appointments(doctors.get(0), LocalDate.now().plusDays(1), 40)) {
+            dtos.add(new AppointmentDTO(a.getId(), a.getDoctor().getId(), a.getDoctor().getName(),
+                    a.getPatient().getId(), a.getPatient().getName(), a.getPatient().getEmail(),
+                    a.getPatient().getPhone(), a.getPatient().getAddress(), a.getAppointmentTime(), a.getStatus()));
+        }
+        appointmentsBody = new HashMap<>();
+        appointmentsBody.put("appointments", dtos);
+
+        availabilityBody = new HashMap<>();
+        availabilityBody.put("availableTimes", List.of("09:00-10:00", "11:00-12:00", "13:00-14:00", "15:00-16:00"));
+    }
+
+    @Benchmark
+    public byte[] doctors() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(doctorsBody);
+    }
+
+    @Benchmark
+    public byte[] appointments() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(appointmentsBody);
+    }
+
+    @Benchmark
+    public byte[] availability() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(availabilityBody);
+    }
+}
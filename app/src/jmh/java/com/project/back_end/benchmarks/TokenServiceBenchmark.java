@@ -0,0 +1,77 @@
+package com.project.back_end.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.project.back_end.DTO.AuthenticatedUser;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.services.TokenService;
+
+// Token issue and verification as done on every authenticated request
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenServiceBenchmark {
+
+    private TokenService cached;
+    // Cache TTL of zero: every call verifies the signature and reads the account again
+    private TokenService uncached;
+    private Doctor doctor;
+    private String token;
+    // Issued without role claims, as before they existed: resolved through the doctor repository
+    private String legacyToken;
+
+    @Setup
+    public void setUp() {
+        List<Doctor> doctors = Fakes.doctors(100);
+        cached = Fakes.tokenService(doctors, 300);
+        uncached = Fakes.tokenService(doctors, 0);
+        doctor = doctors.get(42);
+        token = cached.generateToken(doctor.getEmail(), "doctor", doctor.getId());
+        legacyToken = Fakes.legacyToken(doctor.getEmail());
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cached.generateToken(doctor.getEmail(), "doctor", doctor.getId());
+    }
+
+    @Benchmark
+    public AuthenticatedUser authenticateCached() {
+        return cached.authenticate(token);
+    }
+
+    @Benchmark
+    public AuthenticatedUser authenticateUncached() {
+        return uncached.authenticate(token);
+    }
+
+    @Benchmark
+    public AuthenticatedUser authenticateLegacyUncached() {
+        return uncached.authenticate(legacyToken);
+    }
+
+    @Benchmark
+    public boolean validateTokenCached() {
+        return cached.validateToken(token, "doctor");
+    }
+
+    @Benchmark
+    public boolean validateTokenUncached() {
+        return uncached.validateToken(token, "doctor");
+    }
+}
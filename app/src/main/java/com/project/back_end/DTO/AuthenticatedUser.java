@@ -0,0 +1,37 @@
+package com.project.back_end.DTO;
+
+// Who sent the request, resolved once from the token by AuthenticationInterceptor
+public class AuthenticatedUser {
+
+    // Request attribute the interceptor stores the user under
+    public static final String ATTRIBUTE = "authenticatedUser";
+
+    private final String role;
+    private final Long id;
+    private final String subject;
+
+    public AuthenticatedUser(String role, Long id, String subject) {
+        this.role = role;
+        this.id = id;
+        this.subject = subject;
+    }
+
+    public boolean hasRole(String role) {
+        return this.role.equals(role);
+    }
+
+    // "admin", "doctor" or "patient"
+    public String getRole() {
+        return role;
+    }
+
+    // Id of the admin, doctor or patient row
+    public Long getId() {
+        return id;
+    }
+
+    // Admin username or doctor/patient email
+    public String getSubject() {
+        return subject;
+    }
+}
@@ -0,0 +1,57 @@
+package com.project.back_end.DTO;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// Opaque keyset position: the sort key and id of the last row a client has already seen
+public class PageCursor {
+
+    // Before any real appointment time; used as the lower bound of the first page
+    public static final LocalDateTime START = LocalDateTime.of(1000, 1, 1, 0, 0);
+
+    private final LocalDateTime time;
+    private final Long id;
+
+    public PageCursor(LocalDateTime time, Long id) {
+        this.time = time;
+        this.id = id;
+    }
+
+    public static PageCursor first() {
+        return new PageCursor(START, 0L);
+    }
+
+    public static String encode(LocalDateTime time, Long id) {
+        String raw = (time == null ? "" : time.toString()) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String encode(Long id) {
+        return encode(null, id);
+    }
+
+    // Throws IllegalArgumentException for anything that was not produced by encode
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return first();
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int bar = raw.indexOf('|');
+            String time = raw.substring(0, bar);
+            return new PageCursor(time.isEmpty() ? START : LocalDateTime.parse(time),
+                    Long.parseLong(raw.substring(bar + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,55 @@
+package com.project.back_end.config;
+
+import java.util.Map;
+
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.project.back_end.DTO.AuthenticatedUser;
+import com.project.back_end.services.TokenService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Resolves the caller once per request, from the {token} path variable or the Authorization header, and
+ * stores it as the {@link AuthenticatedUser#ATTRIBUTE} request attribute. Nothing is rejected here: each
+ * endpoint still decides which role it needs, and the role check is answered from what was resolved.
+ */
+@Component
+public class AuthenticationInterceptor implements HandlerInterceptor {
+
+    private static final String BEARER = "Bearer ";
+
+    private final TokenService tokenService;
+
+    public AuthenticationInterceptor(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                             @NonNull Object handler) {
+        AuthenticatedUser user = tokenService.authenticate(token(request));
+        if (user != null) {
+            request.setAttribute(AuthenticatedUser.ATTRIBUTE, user);
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String token(HttpServletRequest request) {
+        Map<String, String> variables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables != null && variables.get("token") != null) {
+            return variables.get("token");
+        }
+        String header = request.getHeader("Authorization");
+        if (header != null && header.startsWith(BEARER)) {
+            return header.substring(BEARER.length());
+        }
+        return header;
+    }
+}
@@ -0,0 +1,71 @@
+package com.project.back_end.config;
+
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.boot.actuate.metrics.data.RepositoryTagsProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocation;
+
+import com.project.back_end.services.AppointmentEventHub;
+import com.project.back_end.services.PrescriptionService;
+import com.project.back_end.services.TokenService;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+// Metrics exposed on /actuator/prometheus, on top of what Spring Boot records for HTTP, Hikari and the Mongo driver
+@Configuration
+public class MetricsConfig {
+
+    // spring.data.repository.invocations gets a store tag (mysql or mongo) so both stores share one query timer
+    @Bean
+    public RepositoryTagsProvider storeTaggingRepositoryTagsProvider() {
+        return new DefaultRepositoryTagsProvider() {
+            @Override
+            public Iterable<Tag> repositoryTags(RepositoryMethodInvocation invocation) {
+                return Tags.of(super.repositoryTags(invocation)).and("store", store(invocation.getRepositoryInterface()));
+            }
+        };
+    }
+
+    private static String store(Class<?> repositoryInterface) {
+        return MongoRepository.class.isAssignableFrom(repositoryInterface) ? "mongo" : "mysql";
+    }
+
+    // Hit rate and size of the verified-token cache in front of JWT parsing
+    @Bean
+    public MeterBinder tokenCacheMetrics(TokenService tokenService) {
+        return registry -> {
+            FunctionCounter.builder("jwt.cache.requests", tokenService, TokenService::getCacheHits)
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("jwt.cache.requests", tokenService, TokenService::getCacheMisses)
+                    .tag("result", "miss").register(registry);
+            FunctionCounter.builder("jwt.cache.evictions", tokenService, TokenService::getCacheEvictions)
+                    .register(registry);
+            Gauge.builder("jwt.cache.size", tokenService, TokenService::getCacheSize).register(registry);
+        };
+    }
+
+    // Open doctor dashboard streams across all doctors
+    @Bean
+    public MeterBinder appointmentEventMetrics(AppointmentEventHub eventHub) {
+        return registry -> Gauge.builder("appointment.events.subscribers", eventHub,
+                AppointmentEventHub::getSubscriberCount).register(registry);
+    }
+
+    // Prescriptions saved in MySQL but not yet copied to MongoDB; a growing value means the relay is failing
+    @Bean
+    public MeterBinder prescriptionOutboxMetrics(PrescriptionService prescriptionService) {
+        return registry -> {
+            Gauge.builder("prescription.outbox.pending", prescriptionService,
+                    PrescriptionService::countPendingOutbox).register(registry);
+            // Dead-lettered after prescription.outbox.max-attempts; anything above zero needs a look at last_error
+            Gauge.builder("prescription.outbox.failed", prescriptionService,
+                    PrescriptionService::countFailedOutbox).register(registry);
+        };
+    }
+}
@@ -0,0 +1,40 @@
+package com.project.back_end.config;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+
+import com.project.back_end.models.Prescription;
+
+/**
+ * Creates the indexes declared with @Indexed on Prescription (appointmentId) if they are missing. Done here
+ * instead of with spring.data.mongodb.auto-index-creation so that an unreachable MongoDB is reported instead
+ * of stopping the application; prescriptions are still saved to the MySQL outbox meanwhile.
+ */
+@Component
+public class PrescriptionIndexes implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+
+    public PrescriptionIndexes(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(Prescription.class);
+            MongoPersistentEntityIndexResolver resolver =
+                    new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+            for (IndexDefinition index : resolver.resolveIndexFor(Prescription.class)) {
+                indexOps.ensureIndex(index);
+            }
+        } catch (Exception e) {
+            System.out.println("Error: " + e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.project.back_end.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Only active with spring.threads.virtual.enabled=true on Java 21+ (see application-virtual-threads.properties)
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    // With no thread cap in front of it, bound the Mongo pool like Hikari so prescription calls queue briefly
+    // instead of opening a connection per waiting request
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoPoolSizedForVirtualThreads(
+            @Value("${spring.datasource.hikari.maximum-pool-size:20}") int poolSize,
+            @Value("${spring.datasource.hikari.connection-timeout:3000}") long waitMillis) {
+        return settings -> settings.applyToConnectionPoolSettings(pool -> pool
+                .maxSize(poolSize)
+                .maxWaitTime(waitMillis, TimeUnit.MILLISECONDS));
+    }
+}
@@ -2,47 +2,86 @@ package com.project.back_end.controllers;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.DTO.AuthenticatedUser;
 import com.project.back_end.models.Appointment;
+import com.project.back_end.services.AppointmentEventHub;
+import com.project.back_end.services.AppointmentExportService;
 import com.project.back_end.services.AppointmentService;
 import com.project.back_end.services.Service;
 
 import jakarta.validation.Valid;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/appointments")
 public class AppointmentController {
 
+    private static final int MAX_BULK_SIZE = 500;
+
     private final AppointmentService appointmentService;
+    private final AppointmentExportService exportService;
+    private final AppointmentEventHub eventHub;
     private final Service service;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public AppointmentController(AppointmentService appointmentService, Service service) {
+    public AppointmentController(AppointmentService appointmentService, AppointmentExportService exportService,
+                                 AppointmentEventHub eventHub, Service service, ObjectMapper objectMapper) {
         this.appointmentService = appointmentService;
+        this.exportService = exportService;
+        this.eventHub = eventHub;
         this.service = service;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/{date}/{patientName}/{token}")
-    public ResponseEntity<Map <String,Object>> getAppointments(@PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date, @PathVariable String patientName,@PathVariable String token)
+    public ResponseEntity<Map <String,Object>> getAppointments(@PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date, @PathVariable String patientName,@PathVariable String token,
+                                                              @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser user)
     {
         Map<String, Object> map = new HashMap<>();
-        ResponseEntity<Map<String,String>> tempMap= service.validateToken(token, "doctor");
+        ResponseEntity<Map<String,String>> tempMap= service.validateUser(user, "doctor");
         if (!tempMap.getBody().isEmpty()) {
             map.putAll(tempMap.getBody());
             return new ResponseEntity<>(map, tempMap.getStatusCode());
         }
-        map=appointmentService.getAppointment(patientName, date, token);
+        map=appointmentService.getAppointment(patientName, date, user.getId());
         return ResponseEntity.status(HttpStatus.OK).body(map);
     }
 
+    // Server-sent events for the doctor's dashboard: booked, updated, cancelled and status, each carrying the
+    // appointment as JSON, plus resync when the dashboard should reload its list
+    @GetMapping(value = "/events/{token}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAppointmentEvents(@PathVariable String token,
+                                                              @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId,
+                                                              @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser user) {
+        ResponseEntity<Map<String, String>> tempMap = service.validateUser(user, "doctor");
+        if (!tempMap.getBody().isEmpty()) {
+            // EventSource ignores error bodies; the status alone stops it from reconnecting
+            return ResponseEntity.status(tempMap.getStatusCode()).build();
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                // Keeps nginx from buffering the stream
+                .header("X-Accel-Buffering", "no")
+                .body(eventHub.subscribe(user.getId(), lastEventId));
+    }
+
 
     @PostMapping("/{token}")
     public ResponseEntity<Map<String, String>> bookAppointment(@RequestBody @Valid Appointment appointment,
@@ -54,20 +93,23 @@ public class AppointmentController {
         }
 
         Map<String, String> response = new HashMap<>();
-        int out = service.validateAppointment(appointment);
+        // Validation and insert happen together under the slot lock inside bookAppointment
+        int out = appointmentService.bookAppointment(appointment);
         if (out == 1) {
-            int res = appointmentService.bookAppointment(appointment);
-            if (res == 1) {
-                response.put("message", "Appointment Booked Successfully");
-                return ResponseEntity.status(HttpStatus.CREATED).body(response); // 201 Created
+            response.put("message", "Appointment Booked Successfully");
+            return ResponseEntity.status(HttpStatus.CREATED).body(response); // 201 Created
 
-            }
+        } else if (out == -2) {
             response.put("message", "Internal Server Error");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response); // 409 Conflict
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
 
         } else if (out == -1) {
             response.put("message", "Invalid doctor id");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+
+        } else if (out == -3) {
+            response.put("message", "Invalid patient id or appointment data");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
 
         response.put("message", "Appointment already booked for given time or Doctor not available");
@@ -75,6 +117,68 @@ public class AppointmentController {
 
     }
 
+    // Front-desk bulk booking: validates the batch in one pass and inserts it with JDBC batching
+    @PostMapping("/bulk/{token}")
+    public ResponseEntity<Map<String, Object>> bookAppointments(@RequestBody List<Appointment> appointments,
+                                                                @PathVariable String token) {
+        Map<String, Object> map = new HashMap<>();
+        ResponseEntity<Map<String, String>> tempMap = service.validateToken(token, "admin");
+        if (!tempMap.getBody().isEmpty()) {
+            map.putAll(tempMap.getBody());
+            return new ResponseEntity<>(map, tempMap.getStatusCode());
+        }
+        if (appointments.isEmpty() || appointments.size() > MAX_BULK_SIZE) {
+            map.put("message", "Batch must contain between 1 and " + MAX_BULK_SIZE + " appointments");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(map);
+        }
+
+        List<Map<String, Object>> results = appointmentService.bookAppointments(appointments);
+        long booked = results.stream().filter(r -> "booked".equals(r.get("status"))).count();
+        map.put("results", results);
+        map.put("booked", booked);
+        map.put("failed", results.size() - booked);
+        return ResponseEntity.status(HttpStatus.OK).body(map);
+    }
+
+    // Admin export of all appointments from one date to another (inclusive) as csv or ndjson, streamed row by row
+    @GetMapping("/export/{format}/{token}")
+    public ResponseEntity<StreamingResponseBody> exportAppointments(@PathVariable String format, @PathVariable String token,
+                                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                @RequestParam(required = false) Long doctorId) {
+        ResponseEntity<Map<String, String>> tempMap = service.validateToken(token, "admin");
+        if (!tempMap.getBody().isEmpty()) {
+            return exportError(tempMap.getStatusCode(), tempMap.getBody());
+        }
+        Map<String, String> response = new HashMap<>();
+        if (!AppointmentExportService.isSupported(format)) {
+            response.put("message", "Format must be csv or ndjson");
+            return exportError(HttpStatus.BAD_REQUEST, response);
+        }
+        if (to.isBefore(from)) {
+            response.put("message", "'to' must not be before 'from'");
+            return exportError(HttpStatus.BAD_REQUEST, response);
+        }
+
+        // Runs on the async request thread after this method returns; the export opens its own transaction
+        StreamingResponseBody body = out -> exportService.export(from.atStartOfDay(), to.plusDays(1).atStartOfDay(),
+                doctorId, format, out);
+        boolean csv = AppointmentExportService.CSV.equals(format);
+        return ResponseEntity.status(HttpStatus.OK)
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"appointments-" + from + "-" + to + "." + format + "\"")
+                .body(body);
+    }
+
+    // Spring only streams when the declared body type is StreamingResponseBody, so errors are written the same way
+    private ResponseEntity<StreamingResponseBody> exportError(HttpStatusCode status, Map<String, String> body) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> out.write(objectMapper.writeValueAsBytes(body)));
+    }
+
     @PutMapping("/{token}")
     public ResponseEntity<Map<String, String>> updateAppointment(@PathVariable String token, @RequestBody @Valid Appointment appointment) {
 
@@ -86,13 +190,14 @@ public class AppointmentController {
     }
 
     @DeleteMapping("/{id}/{token}")
-    public ResponseEntity<Map<String, String>>  cancelAppointment(@PathVariable Long id, @PathVariable String token) {
+    public ResponseEntity<Map<String, String>>  cancelAppointment(@PathVariable Long id, @PathVariable String token,
+                                                                  @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser user) {
 
-        ResponseEntity<Map<String, String>> tempMap = service.validateToken(token, "patient");
+        ResponseEntity<Map<String, String>> tempMap = service.validateUser(user, "patient");
         if (!tempMap.getBody().isEmpty()) {
             return tempMap;
         }
-        return appointmentService.cancelAppointment(id,token);
+        return appointmentService.cancelAppointment(id, user.getId());
     }
 
 }
\ No newline at end of file
@@ -2,32 +2,50 @@ package com.project.back_end.controllers;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import com.project.back_end.DTO.Login;
 import com.project.back_end.models.Doctor;
+import com.project.back_end.services.BulkImportService;
+import com.project.back_end.services.DoctorDirectoryVersion;
 import com.project.back_end.services.DoctorService;
 import com.project.back_end.services.Service;
 
 import jakarta.validation.Valid;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("${api.path}"+"doctor")
 public class DoctorController {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_CALENDAR_DAYS = 62;
+    private static final int DEFAULT_SUGGESTIONS = 10;
+    private static final int MAX_SUGGESTIONS = 50;
+
     private final DoctorService doctorService;
     private final Service service;
+    private final DoctorDirectoryVersion directoryVersion;
+    private final BulkImportService bulkImportService;
 
     @Autowired
-    public DoctorController(DoctorService doctorService,Service service) {
+    public DoctorController(DoctorService doctorService,Service service,DoctorDirectoryVersion directoryVersion,
+                            BulkImportService bulkImportService) {
         this.doctorService = doctorService;
         this.service = service;
+        this.directoryVersion = directoryVersion;
+        this.bulkImportService = bulkImportService;
     }
 
     @GetMapping("/availability/{user}/{doctorId}/{date}/{token}")
@@ -43,12 +61,58 @@ public class DoctorController {
         return ResponseEntity.status(HttpStatus.OK).body(map);
     }
 
+    // Free slots for every day from..to (inclusive, at most MAX_CALENDAR_DAYS) in one call
+    @GetMapping("/availability/{user}/{doctorId}/{from}/{to}/{token}")
+    public ResponseEntity<Map<String,Object>> getDoctorAvailabilityCalendar(@PathVariable String user, @PathVariable Long doctorId,
+                                                                            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                            @PathVariable String token) {
+
+        Map<String, Object> map = new HashMap<>();
+        ResponseEntity<Map<String,String>> tempMap= service.validateToken(token, user);
+        if (!tempMap.getBody().isEmpty()) {
+            map.putAll(tempMap.getBody());
+            return new ResponseEntity<>(map, tempMap.getStatusCode());
+        }
+        if (to.isBefore(from) || from.plusDays(MAX_CALENDAR_DAYS - 1).isBefore(to)) {
+            map.put("message", "The range must run forward and cover at most " + MAX_CALENDAR_DAYS + " days");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(map);
+        }
+        Map<LocalDate, List<String>> days = doctorService.getDoctorAvailability(doctorId, from, to);
+        if (days == null) {
+            map.put("message", "Doctor not found with ID: " + doctorId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(map);
+        }
+        map.put("doctorId", doctorId);
+        map.put("days", days);
+        return ResponseEntity.status(HttpStatus.OK).body(map);
+    }
+
+    // Whole directory by default; keyset-paged on doctor id when cursor or size is given.
+    // Answers 304 from the directory version alone when the client's ETag is still current
     @GetMapping
-    public ResponseEntity<Map<String,Object>> getDoctor()
+    public ResponseEntity<Map<String,Object>> getDoctor(@RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer size,
+                                                        WebRequest webRequest)
     {
+        // Read the version before loading so a concurrent write can only make the tag older, never newer
+        String eTag = directoryVersion.eTag();
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
         Map<String, Object> map=new HashMap<>();
+        if (cursor != null || size != null) {
+            int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+            try {
+                map.putAll(doctorService.getDoctorPage(cursor, pageSize));
+            } catch (IllegalArgumentException e) {
+                map.put("error", e.getMessage());
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(map);
+            }
+            return directoryResponse(map, eTag);
+        }
         map.put("doctors",doctorService.getDoctors());
-        return ResponseEntity.status(HttpStatus.OK).body(map);
+        return directoryResponse(map, eTag);
     }
 
     @PostMapping("/{token}")
@@ -75,6 +139,25 @@ public class DoctorController {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response); // 409 Conflict
     }
 
+    // Admin bulk onboarding: CSV body with a header row (name,specialty,email,password,phone[,availableTimes]),
+    // e.g. curl --data-binary @doctors.csv -H "Content-Type: text/csv" .../doctor/import/{token}
+    @PostMapping(value = "/import/{token}", consumes = {"text/csv", "text/plain"})
+    public ResponseEntity<Map<String, Object>> importDoctors(InputStream csv, @PathVariable String token) throws IOException {
+        Map<String, Object> map = new HashMap<>();
+        ResponseEntity<Map<String,String>> tempMap= service.validateToken(token, "admin");
+        if (!tempMap.getBody().isEmpty()) {
+            map.putAll(tempMap.getBody());
+            return new ResponseEntity<>(map, tempMap.getStatusCode());
+        }
+        try {
+            map.putAll(bulkImportService.importDoctors(csv));
+        } catch (IllegalArgumentException e) {
+            map.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(map);
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(map);
+    }
+
     @PostMapping("/login")
     public ResponseEntity<Map<String, String>> doctorLogin(@RequestBody @Valid Login login)
     {
@@ -116,8 +199,9 @@ public class DoctorController {
         }
         int res=doctorService.deleteDoctor(id);
         if (res==1) {
+            // Appointments are purged in the background; progress at GET /doctor/{id}/deletion/{token}
             response.put("message", "Doctor deleted successfull with id: "+id);
-            return ResponseEntity.status(HttpStatus.CREATED).body(response); // 201 Created
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response); // 202 Accepted
         }
         else if(res==-1)
         {
@@ -129,12 +213,47 @@ public class DoctorController {
     }
 
 
+    @GetMapping("/{id}/deletion/{token}")
+    public ResponseEntity<Map<String, Object>> getDeletionStatus(@PathVariable long id, @PathVariable String token)
+    {
+        ResponseEntity<Map<String,String>> tempMap= service.validateToken(token, "admin");
+        if (!tempMap.getBody().isEmpty()) {
+            return ResponseEntity.status(tempMap.getStatusCode()).body(new HashMap<>(tempMap.getBody()));
+        }
+        return doctorService.getDeletionStatus(id);
+    }
+
+
     @GetMapping("/filter/{name}/{time}/{speciality}")
-    public ResponseEntity<Map<String, Object>> filter(@PathVariable String name, @PathVariable String time, @PathVariable String speciality)
+    public ResponseEntity<Map<String, Object>> filter(@PathVariable String name, @PathVariable String time, @PathVariable String speciality,
+                                                      WebRequest webRequest)
     {
+        String eTag = directoryVersion.eTag();
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
         Map<String,Object> map=new HashMap<>();
         map=service.filterDoctor(name, speciality, time);
-        return ResponseEntity.status(HttpStatus.OK).body(map);
+        return directoryResponse(map, eTag);
+    }
+
+    // Doctor name suggestions for the search box, answered from the in-memory search index
+    @GetMapping("/autocomplete/{prefix}")
+    public ResponseEntity<Map<String, Object>> autocomplete(@PathVariable String prefix,
+                                                            @RequestParam(required = false) Integer limit,
+                                                            WebRequest webRequest)
+    {
+        String eTag = directoryVersion.eTag();
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        int size = limit == null ? DEFAULT_SUGGESTIONS : Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        return directoryResponse(doctorService.autocompleteDoctors(prefix, size), eTag);
+    }
+
+    // no-cache: clients keep the body but revalidate with If-None-Match on every view
+    private static ResponseEntity<Map<String, Object>> directoryResponse(Map<String, Object> map, String eTag) {
+        return ResponseEntity.status(HttpStatus.OK).cacheControl(CacheControl.noCache()).eTag(eTag).body(map);
     }
 
 }
\ No newline at end of file
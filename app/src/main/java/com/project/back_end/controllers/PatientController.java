@@ -1,38 +1,47 @@
 package com.project.back_end.controllers;
 
+import com.project.back_end.DTO.AuthenticatedUser;
 import com.project.back_end.DTO.Login;
 import com.project.back_end.models.Patient;
+import com.project.back_end.services.BulkImportService;
 import com.project.back_end.services.Service;
 import com.project.back_end.services.PatientService;
-import com.project.back_end.services.TokenService;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/patient")
 public class PatientController {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final PatientService patientService;
     private final Service service;
+    private final BulkImportService bulkImportService;
 
-    public PatientController(PatientService patientService, Service service, TokenService tokenService) {
+    public PatientController(PatientService patientService, Service service, BulkImportService bulkImportService) {
         this.patientService = patientService;
         this.service = service;
+        this.bulkImportService = bulkImportService;
     }
 
-    // 3. Get patient details
+    // 3. Get patient details (token in the Authorization header)
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getPatient(@RequestHeader("Authorization") String token) {
-        ResponseEntity<Map<String, String>> validation = service.validateToken(token, "patient");
-        if (validation.getStatusCode().is4xxClientError()) {
-            return ResponseEntity.status(validation.getStatusCode())
-                    .body(Map.of("message", validation.getBody().get("message")));
+    public ResponseEntity<Map<String, Object>> getPatient(@RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser user) {
+        ResponseEntity<Map<String, String>> validation = service.validateUser(user, "patient");
+        if (!validation.getBody().isEmpty()) {
+            return ResponseEntity.status(validation.getStatusCode()).body(new HashMap<>(validation.getBody()));
         }
 
-        return patientService.getPatientDetails(token);
+        return patientService.getPatientDetails(user.getId());
     }
 
     // 4. Create new patient
@@ -50,6 +59,24 @@ public class PatientController {
         return ResponseEntity.status(201).body(Map.of("message", "Patient created successfully"));
     }
 
+    // Admin bulk onboarding: CSV body with a header row (name,email,password,phone,address)
+    @PostMapping(value = "/import/{token}", consumes = {"text/csv", "text/plain"})
+    public ResponseEntity<Map<String, Object>> importPatients(InputStream csv, @PathVariable String token) throws IOException {
+        Map<String, Object> map = new HashMap<>();
+        ResponseEntity<Map<String, String>> validation = service.validateToken(token, "admin");
+        if (!validation.getBody().isEmpty()) {
+            map.putAll(validation.getBody());
+            return ResponseEntity.status(validation.getStatusCode()).body(map);
+        }
+        try {
+            map.putAll(bulkImportService.importPatients(csv));
+        } catch (IllegalArgumentException e) {
+            map.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(map);
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(map);
+    }
+
     // 5. Patient login
     @PostMapping("/login")
     public ResponseEntity<Map<String, String>> login(@RequestBody @Valid Login login) {
@@ -60,31 +87,44 @@ public class PatientController {
     @GetMapping("/appointments/{id}")
     public ResponseEntity<Map<String, Object>> getPatientAppointments(
             @PathVariable Long id,
-            @RequestHeader("Authorization") String token
+            @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser user
     ) {
-        ResponseEntity<Map<String, String>> validation = service.validateToken(token, "patient");
-        if (validation.getStatusCode().is4xxClientError()) {
-            return ResponseEntity.status(validation.getStatusCode())
-                    .body(Map.of("message", validation.getBody().get("message")));
+        ResponseEntity<Map<String, String>> validation = service.validateUser(user, "patient");
+        if (!validation.getBody().isEmpty()) {
+            return ResponseEntity.status(validation.getStatusCode()).body(new HashMap<>(validation.getBody()));
+        }
+        // A patient only ever sees their own appointments
+        if (!id.equals(user.getId())) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("error", "Access denied");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(map);
         }
 
-        return patientService.getPatientAppointment(id, token);
+        return patientService.getPatientAppointment(id);
     }
 
-    // 7. Filter patient appointments
+    // 7. Filter patient appointments (keyset-paged when cursor or size is given)
     @GetMapping("/appointments/filter")
     public ResponseEntity<Map<String, Object>> filterPatientAppointments(
             @RequestParam(required = false) String condition,
             @RequestParam(required = false) String name,
-            @RequestHeader("Authorization") String token
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser user
     ) {
-        ResponseEntity<Map<String, String>> validation = service.validateToken(token, "patient");
-        if (validation.getStatusCode().is4xxClientError()) {
-            return ResponseEntity.status(validation.getStatusCode())
-                    .body(Map.of("message", validation.getBody().get("message")));
+        ResponseEntity<Map<String, String>> validation = service.validateUser(user, "patient");
+        if (!validation.getBody().isEmpty()) {
+            return ResponseEntity.status(validation.getStatusCode()).body(new HashMap<>(validation.getBody()));
+        }
+
+        if (cursor != null || size != null) {
+            return service.filterPatientPage(condition, name, user.getId(), cursor, pageSize(size));
         }
+        return service.filterPatient(condition, name, user.getId());
+    }
 
-        return service.filterPatient(condition, name, token);
+    private static int pageSize(Integer size) {
+        return size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
     }
 }
 
@@ -1,19 +1,26 @@
 package com.project.back_end.controllers;
 
+import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.project.back_end.DTO.AuthenticatedUser;
 import com.project.back_end.models.Prescription;
-import com.project.back_end.services.AppointmentService;
 import com.project.back_end.services.PrescriptionService;
 import com.project.back_end.services.Service;
 
@@ -25,13 +32,11 @@ public class PrescriptionController {
 
     private final PrescriptionService prescriptionService;
     private final Service service;
-    private final AppointmentService appointmentService;
 
     @Autowired
-    public PrescriptionController(PrescriptionService prescriptionService, Service service,AppointmentService appointmentService) {
+    public PrescriptionController(PrescriptionService prescriptionService, Service service) {
         this.prescriptionService = prescriptionService;
         this.service = service;
-        this.appointmentService=appointmentService;
     }
 
     @PostMapping("/{token}")
@@ -40,10 +45,33 @@ public class PrescriptionController {
         if (!tempMap.getBody().isEmpty()) {
             return tempMap;
         }
-        appointmentService.changeStatus(prescription.getAppointmentId());
+        // Completes the appointment as well
         return prescriptionService.savePrescription(prescription);
     }
 
+    // Prescriptions of several appointments in one call, by ?appointmentIds=1,2,3 or by ?date=yyyy-MM-dd for
+    // the token's doctor, keyed by appointment id
+    @GetMapping("/batch/{token}")
+    public ResponseEntity<Map<String, Object>> getPrescriptions(@PathVariable String token,
+                                                                @RequestParam(required = false) List<Long> appointmentIds,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                                                @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser user) {
+        Map<String, Object> map = new HashMap<>();
+        ResponseEntity<Map<String, String>> tempMap = service.validateUser(user, "doctor");
+        if (!tempMap.getBody().isEmpty()) {
+            map.putAll(tempMap.getBody());
+            return new ResponseEntity<>(map, tempMap.getStatusCode());
+        }
+        if ((appointmentIds == null) == (date == null)) {
+            map.put("message", "Pass either appointmentIds or date");
+            return new ResponseEntity<>(map, HttpStatus.BAD_REQUEST);
+        }
+        if (date != null) {
+            return prescriptionService.getPrescriptions(date, user.getId());
+        }
+        return prescriptionService.getPrescriptions(new LinkedHashSet<>(appointmentIds));
+    }
+
     @GetMapping("/{appointmentId}/{token}")
     public ResponseEntity<Map<String, Object>> getPrescription(@PathVariable Long appointmentId,@PathVariable String token)
     {
@@ -6,9 +6,12 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_admin_username", columnNames = "username"))
 public class Admin {
 
     @Id
@@ -24,6 +27,10 @@ public class Admin {
 
     //getters and setters
 
+    public Long getId() {
+        return id;
+    }
+
     public String getUsername() {
         return username;
     }
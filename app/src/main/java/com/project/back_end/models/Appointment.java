@@ -5,8 +5,12 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.NotNull;
 
@@ -16,10 +20,23 @@ import java.time.LocalTime;
 
 
 @Entity
+// Mirrors the migrations: the unique key serves a doctor's day, the patient indexes a patient's appointments in
+// time order, with and without a status, and idx_appointment_time the export of a time range
+@Table(uniqueConstraints = @UniqueConstraint(name = Appointment.SLOT_CONSTRAINT,
+        columnNames = {"doctor_id", "appointment_time"}),
+        indexes = {
+                @Index(name = "idx_appointment_patient_status_time", columnList = "patient_id, status, appointment_time"),
+                @Index(name = "idx_appointment_patient_time", columnList = "patient_id, appointment_time, id"),
+                @Index(name = "idx_appointment_time", columnList = "appointment_time, id")})
 public class Appointment {
 
+    // Name of the unique key on (doctor_id, appointment_time); a violation of it means the slot is taken
+    public static final String SLOT_CONSTRAINT = "uk_appointment_doctor_time";
+
+    // Pooled sequence instead of IDENTITY so Hibernate can batch inserts (a table-backed sequence on MySQL)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointment_seq")
+    @SequenceGenerator(name = "appointment_seq", sequenceName = "appointment_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -30,6 +47,7 @@ public class Appointment {
     @NotNull(message = "Patient must be assigned to the appointment")
     private Patient patient;
 
+    @NotNull(message = "Appointment time is required")
     @Future(message = "Appointment time must be in the future")
     private LocalDateTime appointmentTime;  // The time when the appointment is scheduled
 
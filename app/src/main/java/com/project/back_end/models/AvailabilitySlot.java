@@ -0,0 +1,113 @@
+package com.project.back_end.models;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.TextStyle;
+import java.util.Locale;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+// One bookable window of a doctor's week, stored as integers so filters never parse strings
+@Embeddable
+public class AvailabilitySlot {
+
+    public static final int NOON = 12 * 60;
+
+    @Column(name = "start_minute", nullable = false)
+    private int startMinute; // minutes after midnight, e.g. 540 for 09:00
+
+    @Column(name = "duration_minutes", nullable = false)
+    private int durationMinutes;
+
+    @Column(name = "day_of_week")
+    private Integer dayOfWeek; // ISO 1 (Monday) to 7 (Sunday); null means every day
+
+    public AvailabilitySlot() {
+    }
+
+    public AvailabilitySlot(int startMinute, int durationMinutes, Integer dayOfWeek) {
+        this.startMinute = startMinute;
+        this.durationMinutes = durationMinutes;
+        this.dayOfWeek = dayOfWeek;
+    }
+
+    // Parses "09:00-10:00", optionally prefixed with a day such as "MON 09:00-10:00"
+    public static AvailabilitySlot parse(String label) {
+        try {
+            String text = label.trim();
+            Integer day = null;
+            int space = text.indexOf(' ');
+            if (space > 0) {
+                day = parseDay(text.substring(0, space));
+                text = text.substring(space + 1).trim();
+            }
+            String[] times = text.split("-");
+            LocalTime start = LocalTime.parse(times[0].trim());
+            LocalTime end = LocalTime.parse(times[1].trim());
+            int startMinute = start.getHour() * 60 + start.getMinute();
+            int endMinute = end.getHour() * 60 + end.getMinute();
+            int duration = endMinute > startMinute ? endMinute - startMinute : endMinute + 24 * 60 - startMinute;
+            return new AvailabilitySlot(startMinute, duration, day);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid time slot: " + label, e);
+        }
+    }
+
+    private static Integer parseDay(String day) {
+        for (DayOfWeek d : DayOfWeek.values()) {
+            if (d.getDisplayName(TextStyle.SHORT, Locale.ENGLISH).equalsIgnoreCase(day)) {
+                return d.getValue();
+            }
+        }
+        throw new IllegalArgumentException("Invalid day: " + day);
+    }
+
+    // The same "HH:mm-HH:mm" (or "MON HH:mm-HH:mm") form that parse accepts
+    public String toLabel() {
+        String times = String.format("%02d:%02d-%02d:%02d", startMinute / 60, startMinute % 60,
+                (getEndMinute() / 60) % 24, getEndMinute() % 60);
+        if (dayOfWeek == null) {
+            return times;
+        }
+        String day = DayOfWeek.of(dayOfWeek).getDisplayName(TextStyle.SHORT, Locale.ENGLISH).toUpperCase();
+        return day + " " + times;
+    }
+
+    public boolean appliesTo(LocalDate date) {
+        return dayOfWeek == null || dayOfWeek == date.getDayOfWeek().getValue();
+    }
+
+    public boolean isMorning() {
+        return startMinute < NOON;
+    }
+
+    public int getEndMinute() {
+        return startMinute + durationMinutes;
+    }
+
+    public int getStartMinute() {
+        return startMinute;
+    }
+
+    public void setStartMinute(int startMinute) {
+        this.startMinute = startMinute;
+    }
+
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public void setDurationMinutes(int durationMinutes) {
+        this.durationMinutes = durationMinutes;
+    }
+
+    public Integer getDayOfWeek() {
+        return dayOfWeek;
+    }
+
+    public void setDayOfWeek(Integer dayOfWeek) {
+        this.dayOfWeek = dayOfWeek;
+    }
+}
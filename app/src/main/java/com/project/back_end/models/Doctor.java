@@ -2,23 +2,49 @@ package com.project.back_end.models;
 
 
 
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.OrderBy;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.SQLRestriction;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+// Read on nearly every request and only written by admins, so rows and slots live in the second-level cache
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Doctor.CACHE_REGION)
+// Deleted doctors stay until their appointments are purged, but no query sees them any more
+@SQLRestriction("deleted_at IS NULL")
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_doctor_email", columnNames = "email"))
 public class Doctor {
 
+    public static final String CACHE_REGION = "doctor";
+    public static final String SLOTS_CACHE_REGION = "doctor-slots";
+
+    // Pooled sequence instead of IDENTITY so bulk imports can batch inserts (a table-backed sequence on MySQL)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "doctor_seq")
+    @SequenceGenerator(name = "doctor_seq", sequenceName = "doctor_seq", allocationSize = 50)
     private Long id;
 
     @NotNull(message = "Doctor's name cannot be null")
@@ -43,9 +69,19 @@ public class Doctor {
     private String phone;
 
 
-    // A list to store available times for the doctor (as string representations of time slots)
+    // Available time slots as integers (start minute, duration, optional weekday) in an indexed table
     @ElementCollection
-    private List<String> availableTimes; // e.g., ["09:00-10:00", "10:00-11:00", ...]
+    @CollectionTable(name = "doctor_availability_slot",
+            joinColumns = @JoinColumn(name = "doctor_id"),
+            indexes = @Index(name = "idx_slot_doctor_start", columnList = "doctor_id, start_minute"))
+    @OrderBy("startMinute")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Doctor.SLOTS_CACHE_REGION)
+    @JsonIgnore
+    private List<AvailabilitySlot> availabilitySlots = new ArrayList<>();
+
+    @Column(name = "deleted_at")
+    @JsonIgnore
+    private LocalDateTime deletedAt;
 
 
     // Getters and Setters
@@ -99,11 +135,43 @@ public class Doctor {
         this.phone = phone;
     }
 
+    public List<AvailabilitySlot> getAvailabilitySlots() {
+        return availabilitySlots;
+    }
+
+    public void setAvailabilitySlots(List<AvailabilitySlot> availabilitySlots) {
+        this.availabilitySlots = availabilitySlots;
+    }
+
+    // The API keeps the "HH:mm-HH:mm" string form, e.g. ["09:00-10:00", "10:00-11:00", ...]
+    @JsonProperty("availableTimes")
     public List<String> getAvailableTimes() {
-        return availableTimes;
+        if (availabilitySlots == null) {
+            return null;
+        }
+        List<String> labels = new ArrayList<>(availabilitySlots.size());
+        for (AvailabilitySlot slot : availabilitySlots) {
+            labels.add(slot.toLabel());
+        }
+        return labels;
     }
 
+    @JsonProperty("availableTimes")
     public void setAvailableTimes(List<String> availableTimes) {
-        this.availableTimes = availableTimes;
+        List<AvailabilitySlot> slots = new ArrayList<>();
+        if (availableTimes != null) {
+            for (String label : availableTimes) {
+                slots.add(AvailabilitySlot.parse(label));
+            }
+        }
+        this.availabilitySlots = slots;
+    }
+
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
     }
 }
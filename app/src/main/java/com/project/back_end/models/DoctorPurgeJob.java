@@ -0,0 +1,116 @@
+package com.project.back_end.models;
+
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+
+// Background removal of a soft-deleted doctor: appointments are deleted in chunks, then the doctor row.
+// The row is kept once done (or failed for good) so the admin can still read the outcome
+@Entity
+@Table(name = "doctor_purge_job",
+        indexes = @Index(name = "idx_purge_status_next_attempt", columnList = "status, next_attempt_at"))
+public class DoctorPurgeJob {
+
+    public static final String PENDING = "pending";
+    public static final String DONE = "done";
+    public static final String FAILED = "failed";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "doctor_id", nullable = false, unique = true)
+    private Long doctorId;
+
+    @Column(nullable = false, length = 20)
+    private String status;
+
+    private long appointmentsDeleted;
+
+    private LocalDateTime requestedAt;
+
+    private LocalDateTime finishedAt;
+
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    public DoctorPurgeJob() {}
+
+    public DoctorPurgeJob(Long doctorId) {
+        this.doctorId = doctorId;
+        this.status = PENDING;
+        this.requestedAt = LocalDateTime.now();
+        this.nextAttemptAt = this.requestedAt;
+    }
+
+    public void appointmentsDeleted(int count) {
+        appointmentsDeleted += count;
+    }
+
+    public void finish() {
+        status = DONE;
+        finishedAt = LocalDateTime.now();
+    }
+
+    // Records a failed chunk. The job steps aside for the others (see RetryBackoff) and is given up on (failed)
+    // after maxAttempts
+    public void retryLater(String error, int maxAttempts, long maxBackoffSeconds) {
+        attempts++;
+        lastError = RetryBackoff.lastError(error);
+        if (attempts >= maxAttempts) {
+            status = FAILED;
+            finishedAt = LocalDateTime.now();
+            return;
+        }
+        nextAttemptAt = RetryBackoff.nextAttemptAt(attempts, maxBackoffSeconds);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public long getAppointmentsDeleted() {
+        return appointmentsDeleted;
+    }
+
+    public LocalDateTime getRequestedAt() {
+        return requestedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+}
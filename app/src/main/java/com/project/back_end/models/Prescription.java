@@ -3,6 +3,7 @@ package com.project.back_end.models;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "prescriptions")
@@ -16,6 +17,7 @@ public class Prescription {
     private String patientName;
 
     @NotNull(message = "Appointment ID is required")
+    @Indexed(name = "idx_prescriptions_appointment_id")
     private Long appointmentId;  // Reference to the Appointment entity's ID (Long type)
 
     @NotNull(message = "Medication is required")
@@ -0,0 +1,117 @@
+package com.project.back_end.models;
+
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+
+// A prescription saved in MySQL together with the appointment status change, waiting to be copied to MongoDB.
+// Rows are deleted once the relay has written them; whatever is left is still pending, or failed for good and
+// waiting for someone to look at lastError
+@Entity
+@Table(name = "prescription_outbox", indexes = {
+        @Index(name = "idx_outbox_status_next_attempt", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_outbox_appointment", columnList = "appointment_id")})
+public class PrescriptionOutbox {
+
+    public static final String PENDING = "pending";
+    public static final String FAILED = "failed";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "appointment_id", nullable = false)
+    private Long appointmentId;
+
+    private String patientName;
+
+    private String medication;
+
+    private String dosage;
+
+    @Column(length = 200)
+    private String doctorNotes;
+
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false, length = 20)
+    private String status;
+
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    public PrescriptionOutbox() {}
+
+    public PrescriptionOutbox(Prescription prescription) {
+        this.appointmentId = prescription.getAppointmentId();
+        this.patientName = prescription.getPatientName();
+        this.medication = prescription.getMedication();
+        this.dosage = prescription.getDosage();
+        this.doctorNotes = prescription.getDoctorNotes();
+        this.createdAt = LocalDateTime.now();
+        this.status = PENDING;
+        this.nextAttemptAt = this.createdAt;
+    }
+
+    // The MongoDB document, with an id derived from this row so a retried write replaces instead of duplicating
+    public Prescription toPrescription() {
+        Prescription prescription = new Prescription(patientName, medication, dosage, doctorNotes, appointmentId);
+        prescription.setId("outbox-" + id);
+        return prescription;
+    }
+
+    // Taken by a relay: other relays see the row as not due until the lease runs out, so a relay that dies
+    // mid-batch only delays it
+    public void claimUntil(LocalDateTime leaseEnd) {
+        nextAttemptAt = leaseEnd;
+    }
+
+    // Records a failed relay attempt and pushes the next one out (see RetryBackoff); after maxAttempts the row is
+    // dead-lettered (failed) and the relay leaves it alone
+    public void retryLater(String error, int maxAttempts, long maxBackoffSeconds) {
+        attempts++;
+        lastError = RetryBackoff.lastError(error);
+        if (attempts >= maxAttempts) {
+            status = FAILED;
+            return;
+        }
+        nextAttemptAt = RetryBackoff.nextAttemptAt(attempts, maxBackoffSeconds);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getAppointmentId() {
+        return appointmentId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+}
@@ -0,0 +1,24 @@
+package com.project.back_end.models;
+
+import java.time.LocalDateTime;
+
+
+// Retry bookkeeping shared by the rows background workers pick up again after a failure (DoctorPurgeJob,
+// PrescriptionOutbox): the wait doubles with every failed attempt, capped at maxBackoffSeconds, and the error kept
+// for the admin fits the 500 character last_error column
+public final class RetryBackoff {
+
+    private static final int LAST_ERROR_LENGTH = 500;
+
+    private RetryBackoff() {}
+
+    // When to try again after the given number of failed attempts
+    public static LocalDateTime nextAttemptAt(int attempts, long maxBackoffSeconds) {
+        long backoff = Math.min(maxBackoffSeconds, 1L << Math.min(attempts, 20));
+        return LocalDateTime.now().plusSeconds(backoff);
+    }
+
+    public static String lastError(String error) {
+        return error == null ? null : error.substring(0, Math.min(error.length(), LAST_ERROR_LENGTH));
+    }
+}
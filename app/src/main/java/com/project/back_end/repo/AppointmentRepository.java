@@ -1,87 +1,192 @@
 package com.project.back_end.repo;
 
+import com.project.back_end.DTO.AppointmentDTO;
 import com.project.back_end.models.Appointment;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.QueryHint;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
 
-    // Get appointments for a doctor within time range
+    // Selects exactly the columns AppointmentDTO needs, so no entities are hydrated or tracked
+    String DTO_SELECT = """
+           SELECT new com.project.back_end.DTO.AppointmentDTO(
+               a.id, d.id, d.name, p.id, p.name, p.email, p.phone, p.address, a.appointmentTime, a.status)
+           FROM Appointment a
+           JOIN a.doctor d
+           JOIN a.patient p
+           """;
+
+    // Only the start times of a doctor's appointments within a time range
     @Query("""
-           SELECT a FROM Appointment a
-           LEFT JOIN FETCH a.doctor d
-           LEFT JOIN FETCH d.availableTimes
-           WHERE d.id = :doctorId
+           SELECT a.appointmentTime FROM Appointment a
+           WHERE a.doctor.id = :doctorId
            AND a.appointmentTime BETWEEN :start AND :end
            """)
-    List<Appointment> findByDoctorIdAndAppointmentTimeBetween(Long doctorId,
-                                                              LocalDateTime start,
-                                                              LocalDateTime end);
+    List<LocalDateTime> findAppointmentTimesByDoctorIdAndAppointmentTimeBetween(Long doctorId,
+                                                                              LocalDateTime start,
+                                                                              LocalDateTime end);
 
+    // Only the ids of a doctor's appointments within a time range
     @Query("""
-           SELECT a FROM Appointment a
-           LEFT JOIN FETCH a.doctor d
-           LEFT JOIN FETCH a.patient p
-           WHERE d.id = :doctorId
-           AND LOWER(p.name) LIKE LOWER(CONCAT('%', :patientName, '%'))
+           SELECT a.id FROM Appointment a
+           WHERE a.doctor.id = :doctorId
            AND a.appointmentTime BETWEEN :start AND :end
            """)
-    List<Appointment> findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween(
-            Long doctorId,
-            String patientName,
-            LocalDateTime start,
-            LocalDateTime end
-    );
-
-
-    // Delete all appointments for a doctor
-    @Modifying
-    @Transactional
-    void deleteAllByDoctorId(Long doctorId);
+    List<Long> findIdsByDoctorIdAndAppointmentTimeBetween(Long doctorId, LocalDateTime start, LocalDateTime end);
 
+    // DTO variant: a doctor's appointments within a time range
+    @Query(DTO_SELECT + """
+           WHERE d.id = :doctorId
+           AND a.appointmentTime BETWEEN :start AND :end
+           """)
+    List<AppointmentDTO> findDtoByDoctorIdAndAppointmentTimeBetween(Long doctorId,
+                                                                    LocalDateTime start,
+                                                                    LocalDateTime end);
 
-    // Get appointments by patient id
-    List<Appointment> findByPatientId(Long patientId);
+    // DTO variant: a single appointment
+    @Query(DTO_SELECT + """
+           WHERE a.id = :id
+           """)
+    Optional<AppointmentDTO> findDtoById(Long id);
 
+    @Query("SELECT a.doctor.id FROM Appointment a WHERE a.id = :id")
+    Optional<Long> findDoctorIdById(Long id);
 
-    // Get appointments by patient + status ordered by time
-    List<Appointment> findByPatient_IdAndStatusOrderByAppointmentTimeAsc(Long patientId, int status);
+    // DTO variant: a doctor's appointments within a time range, filtered by patient name
+    @Query(DTO_SELECT + """
+           WHERE d.id = :doctorId
+           AND LOWER(p.name) LIKE LOWER(CONCAT('%', :patientName, '%'))
+           AND a.appointmentTime BETWEEN :start AND :end
+           """)
+    List<AppointmentDTO> findDtoByDoctorIdAndPatientNameAndAppointmentTimeBetween(Long doctorId,
+                                                                                  String patientName,
+                                                                                  LocalDateTime start,
+                                                                                  LocalDateTime end);
+
+    // DTO variant: all appointments of a patient
+    @Query(DTO_SELECT + """
+           WHERE p.id = :patientId
+           """)
+    List<AppointmentDTO> findDtoByPatientId(Long patientId);
 
+    // DTO variant: appointments of a patient with a status, ordered by time
+    @Query(DTO_SELECT + """
+           WHERE p.id = :patientId
+           AND a.status = :status
+           ORDER BY a.appointmentTime ASC
+           """)
+    List<AppointmentDTO> findDtoByPatientIdAndStatusOrderByAppointmentTimeAsc(Long patientId, int status);
 
-    // Filter by doctor name + patient id
-    @Query("""
-           SELECT a FROM Appointment a
-           JOIN a.doctor d
+    // DTO variant: filter by doctor name + patient id
+    @Query(DTO_SELECT + """
            WHERE LOWER(d.name) LIKE LOWER(CONCAT('%', :doctorName, '%'))
-           AND a.patient.id = :patientId
+           AND p.id = :patientId
            """)
-    List<Appointment> filterByDoctorNameAndPatientId(String doctorName, Long patientId);
-
+    List<AppointmentDTO> filterDtoByDoctorNameAndPatientId(String doctorName, Long patientId);
 
-    // Filter by doctor name + patient + status
-    @Query("""
-           SELECT a FROM Appointment a
-           JOIN a.doctor d
+    // DTO variant: filter by doctor name + patient id + status
+    @Query(DTO_SELECT + """
            WHERE LOWER(d.name) LIKE LOWER(CONCAT('%', :doctorName, '%'))
-           AND a.patient.id = :patientId
+           AND p.id = :patientId
+           AND a.status = :status
+           """)
+    List<AppointmentDTO> filterDtoByDoctorNameAndPatientIdAndStatus(String doctorName,
+                                                                    Long patientId,
+                                                                    int status);
+
+
+    // Keyset page of all of a patient's appointments after (afterTime, afterId); doctorName is optional.
+    // Walks idx_appointment_patient_time in order, so the page needs no sort
+    @Query(DTO_SELECT + """
+           WHERE p.id = :patientId
+           AND (:doctorName IS NULL OR LOWER(d.name) LIKE LOWER(CONCAT('%', :doctorName, '%')))
+           AND a.appointmentTime >= :afterTime
+           AND (a.appointmentTime > :afterTime OR a.id > :afterId)
+           ORDER BY a.appointmentTime ASC, a.id ASC
+           """)
+    List<AppointmentDTO> findDtoPageByPatientId(Long patientId,
+                                                String doctorName,
+                                                LocalDateTime afterTime,
+                                                Long afterId,
+                                                Pageable page);
+
+    // Same page for one status. A separate query rather than an optional status parameter: "(:status IS NULL OR
+    // ...)" keeps either index from delivering rows in order. Served by idx_appointment_patient_status_time
+    @Query(DTO_SELECT + """
+           WHERE p.id = :patientId
            AND a.status = :status
+           AND (:doctorName IS NULL OR LOWER(d.name) LIKE LOWER(CONCAT('%', :doctorName, '%')))
+           AND a.appointmentTime >= :afterTime
+           AND (a.appointmentTime > :afterTime OR a.id > :afterId)
+           ORDER BY a.appointmentTime ASC, a.id ASC
+           """)
+    List<AppointmentDTO> findDtoPageByPatientIdAndStatus(Long patientId,
+                                                         int status,
+                                                         String doctorName,
+                                                         LocalDateTime afterTime,
+                                                         Long afterId,
+                                                         Pageable page);
+
+
+    // Export of [from, to) in time order, straight from idx_appointment_time. Must be consumed inside a
+    // transaction and closed; the MIN_VALUE fetch size makes Connector/J stream rows instead of buffering them
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(DTO_SELECT + """
+           WHERE a.appointmentTime >= :from
+           AND a.appointmentTime < :to
+           ORDER BY a.appointmentTime ASC, a.id ASC
            """)
-    List<Appointment> filterByDoctorNameAndPatientIdAndStatus(String doctorName,
-                                                              Long patientId,
-                                                              int status);
+    Stream<AppointmentDTO> streamDtoByAppointmentTimeRange(LocalDateTime from, LocalDateTime to);
+
+    // Same export for one doctor, from uk_appointment_doctor_time. A separate query rather than an optional
+    // doctorId: "(:doctorId IS NULL OR ...)" keeps MySQL from using either index for the range. A doctor has one
+    // appointment per time, so the time alone orders the rows and the index delivers them without a sort
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(DTO_SELECT + """
+           WHERE d.id = :doctorId
+           AND a.appointmentTime >= :from
+           AND a.appointmentTime < :to
+           ORDER BY a.appointmentTime ASC
+           """)
+    Stream<AppointmentDTO> streamDtoByDoctorIdAndAppointmentTimeRange(Long doctorId, LocalDateTime from,
+                                                                      LocalDateTime to);
+
+
+    // The next chunk of a doctor's appointment ids, so a purge deletes in bounded statements
+    @Query("SELECT a.id FROM Appointment a WHERE a.doctor.id = :doctorId ORDER BY a.id ASC")
+    List<Long> findIdChunkByDoctorId(Long doctorId, Pageable page);
+
+    // One set-based DELETE instead of loading and removing the entities one by one
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Appointment a WHERE a.id IN :ids")
+    int deleteAllByIdIn(Collection<Long> ids);
 
 
-    // Update appointment status
+    // Update appointment status; returns the rows updated, 0 when there is no such appointment
     @Modifying
     @Transactional
     @Query("UPDATE Appointment a SET a.status = :status WHERE a.id = :id")
-    void updateStatus(int status, long id);
+    int updateStatus(int status, long id);
 }
 
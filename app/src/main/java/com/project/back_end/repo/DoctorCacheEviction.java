@@ -0,0 +1,11 @@
+package com.project.back_end.repo;
+
+// Custom fragment of DoctorRepository for dropping a doctor from Hibernate's second-level cache
+public interface DoctorCacheEviction {
+
+    // Evicts the doctor row, their availability slots and the cached query results (e.g. findByEmail)
+    void evictFromCache(Long doctorId);
+
+    // Evicts every cached doctor, e.g. after the tables were written with plain SQL
+    void evictAllFromCache();
+}
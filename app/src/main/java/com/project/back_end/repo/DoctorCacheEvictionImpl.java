@@ -0,0 +1,38 @@
+package com.project.back_end.repo;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+
+import com.project.back_end.models.Doctor;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// Picked up by Spring Data as the implementation of the DoctorCacheEviction fragment
+class DoctorCacheEvictionImpl implements DoctorCacheEviction {
+
+    private static final String SLOTS_ROLE = Doctor.class.getName() + ".availabilitySlots";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    DoctorCacheEvictionImpl(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void evictFromCache(Long doctorId) {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        if (doctorId != null) {
+            cache.evictEntityData(Doctor.class, doctorId);
+            cache.evictCollectionData(SLOTS_ROLE, doctorId);
+        }
+        cache.evictDefaultQueryRegion();
+    }
+
+    @Override
+    public void evictAllFromCache() {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(Doctor.class);
+        cache.evictCollectionData(SLOTS_ROLE);
+        cache.evictDefaultQueryRegion();
+    }
+}
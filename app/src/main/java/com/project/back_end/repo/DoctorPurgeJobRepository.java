@@ -0,0 +1,29 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.DoctorPurgeJob;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DoctorPurgeJobRepository extends JpaRepository<DoctorPurgeJob, Long> {
+
+    // Oldest unfinished job that is due (not backing off after a failure), locked FOR UPDATE SKIP LOCKED so
+    // instances work on different jobs
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT j FROM DoctorPurgeJob j WHERE j.status = 'pending' AND j.nextAttemptAt <= :now ORDER BY j.id ASC")
+    List<DoctorPurgeJob> lockPending(LocalDateTime now, Pageable page);
+
+    Optional<DoctorPurgeJob> findByDoctorId(Long doctorId);
+}
@@ -1,28 +1,63 @@
 package com.project.back_end.repo;
 
 import com.project.back_end.models.Doctor;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import jakarta.persistence.QueryHint;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface DoctorRepository extends JpaRepository<Doctor, Long> {
+public interface DoctorRepository extends JpaRepository<Doctor, Long>, DoctorCacheEviction {
 
-    // Find doctor by email
+    // Find doctor by email; hit on every login and token check, so the result goes to the query cache
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     Doctor findByEmail(String email);
 
+    // Which of the given emails are already taken, in one query (bulk import de-duplication)
+    @Query("SELECT d.email FROM Doctor d WHERE d.email IN :emails")
+    List<String> findEmailsIn(@Param("emails") Collection<String> emails);
 
-    // Find doctors where name contains (case-sensitive LIKE)
-    @Query("SELECT d FROM Doctor d WHERE LOWER(d.name) LIKE LOWER(CONCAT('%', :name, '%'))")
-    List<Doctor> findByNameLike(@Param("name") String name);
+    // Find doctor by id together with the available times in one query
+    @Query("SELECT d FROM Doctor d LEFT JOIN FETCH d.availabilitySlots WHERE d.id = :id")
+    Optional<Doctor> findWithAvailableTimesById(@Param("id") Long id);
 
-    // Find doctors where name contains (ignore case) AND specialty matches (ignore case)
-    List<Doctor> findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase(String name, String specialty);
 
+    // Keyset page of doctor ids after the given id
+    @Query("SELECT d.id FROM Doctor d WHERE d.id > :afterId ORDER BY d.id ASC")
+    List<Long> findIdPage(@Param("afterId") Long afterId, Pageable page);
 
-    // Find doctors by specialty ignoring case
-    List<Doctor> findBySpecialtyIgnoreCase(String specialty);
+    // The whole directory with the available times, in one query (loads DoctorSearchIndex)
+    @Query("SELECT DISTINCT d FROM Doctor d LEFT JOIN FETCH d.availabilitySlots")
+    List<Doctor> findAllWithAvailableTimes();
+
+    // Doctors with their available times for a page of ids, in id order
+    @Query("SELECT DISTINCT d FROM Doctor d LEFT JOIN FETCH d.availabilitySlots WHERE d.id IN :ids ORDER BY d.id ASC")
+    List<Doctor> findAllWithAvailableTimesByIdIn(@Param("ids") List<Long> ids);
+
+    // Hides the doctor and moves their email out of the way of uk_doctor_email; the id prefix keeps the renamed
+    // value unique
+    @Modifying
+    @Query(value = "UPDATE doctor SET deleted_at = :at, email = LEFT(CONCAT('deleted-', id, ':', email), 255) "
+            + "WHERE id = :id AND deleted_at IS NULL", nativeQuery = true)
+    int softDelete(@Param("id") Long id, @Param("at") LocalDateTime at);
+
+    // Final removal of a soft-deleted doctor once the purge has deleted its appointments; native because
+    // entity queries no longer see the row
+    @Modifying
+    @Query(value = "DELETE FROM doctor_availability_slot WHERE doctor_id = :id", nativeQuery = true)
+    void purgeAvailabilitySlots(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "DELETE FROM doctor WHERE id = :id AND deleted_at IS NOT NULL", nativeQuery = true)
+    int purgeDeleted(@Param("id") Long id);
 }
@@ -2,13 +2,23 @@ package com.project.back_end.repo;
 
 import com.project.back_end.models.Patient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, Long> {
     Patient findByEmail (String email);
 
     Patient findByEmailOrPhone (String email, String phone);
+
+    // [email, phone] of every patient matching any of the given emails or phones, in one query (bulk import)
+    @Query("SELECT p.email, p.phone FROM Patient p WHERE p.email IN :emails OR p.phone IN :phones")
+    List<Object[]> findEmailsAndPhonesIn(@Param("emails") Collection<String> emails,
+                                         @Param("phones") Collection<String> phones);
     // 1. Extend JpaRepository:
 //    - The repository extends JpaRepository<Patient, Long>, which provides basic CRUD functionality.
 //    - This allows the repository to perform operations like save, delete, update, and find without needing to implement these methods manually.
@@ -0,0 +1,34 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.PrescriptionOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PrescriptionOutboxRepository extends JpaRepository<PrescriptionOutbox, Long> {
+
+    // Due rows, locked FOR UPDATE SKIP LOCKED (lock timeout -2) so concurrent relays never pick the same row
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT o FROM PrescriptionOutbox o WHERE o.status = 'pending' AND o.nextAttemptAt <= :now "
+            + "ORDER BY o.id ASC")
+    List<PrescriptionOutbox> lockDue(LocalDateTime now, Pageable page);
+
+    long countByStatus(String status);
+
+    // Not yet relayed prescriptions of an appointment, so readers see them before MongoDB does
+    List<PrescriptionOutbox> findByAppointmentIdOrderByIdAsc(Long appointmentId);
+
+    List<PrescriptionOutbox> findByAppointmentIdInOrderByIdAsc(Collection<Long> appointmentIds);
+}
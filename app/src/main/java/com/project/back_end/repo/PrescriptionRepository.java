@@ -4,10 +4,14 @@ import com.project.back_end.models.Prescription;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface PrescriptionRepository extends MongoRepository<Prescription, String> {
     List<Prescription> findByAppointmentId (Long appointmentId);
+
+    // One $in query on the appointmentId index for a whole list of appointments
+    List<Prescription> findByAppointmentIdIn(Collection<Long> appointmentIds);
 }
 
@@ -0,0 +1,357 @@
+package com.project.back_end.services;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.DTO.AppointmentDTO;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pushes appointment changes to the open doctor dashboards as server-sent events. Each doctor has one channel
+ * that all of their dashboards share: {@link AppointmentService} publishes a change once, and the channel loads
+ * the appointment, serializes it once and queues the same bytes for every subscriber. Events go out after the
+ * change commits and in the order they were published; nothing is loaded for doctors nobody watches.
+ * <p>
+ * Nothing here waits on someone else's work. Every channel and every subscriber has a lane of its own, a queue
+ * run one task at a time on a shared pool, so a slow appointment load only holds up that doctor's events and a
+ * blocking write only holds up that dashboard. A dashboard that falls more than
+ * {@code appointment.events.max-queued} frames behind is closed; its EventSource reconnects and catches up
+ * through Last-Event-ID. The pool is capped at {@code appointment.events.threads} platform threads, so a burst of
+ * hung writes waits in its queue instead of starting a thread per dashboard; with virtual threads on, each lane
+ * gets a virtual thread of its own.
+ * <p>
+ * Each channel keeps its last few events, so an EventSource that reconnects with Last-Event-ID gets what it
+ * missed. When that is no longer possible (the buffer moved on, the channel was closed in between, or the id
+ * comes from before a restart) it gets a {@code resync} event and reloads the day instead.
+ */
+@Component
+public class AppointmentEventHub {
+
+    public static final String BOOKED = "booked";
+    public static final String UPDATED = "updated";
+    public static final String CANCELLED = "cancelled";
+    public static final String STATUS_CHANGED = "status";
+    public static final String RESYNC = "resync";
+
+    private record Event(long sequence, Set<DataWithMediaType> frame) {
+    }
+
+    // Runs its tasks one at a time and in order on the shared pool; different lanes run in parallel
+    private final class Lane {
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    workers.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
+                }
+            }
+        }
+
+        private void drain() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    System.out.println("Error: " + e);
+                }
+            }
+            scheduled.set(false);
+            // A task added after the last poll but before the flag was cleared
+            if (!tasks.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    private final class Subscriber {
+        private final Long doctorId;
+        private final SseEmitter emitter;
+        // Events up to here are covered by what the dashboard already has; newer ones are replayed on start
+        private final long since;
+        private final boolean resync;
+        // Set on the channel lane once the replay is queued; until then live events are only buffered for it
+        private volatile boolean live;
+        private volatile boolean closed;
+        // Every call on the emitter runs here, so a write that blocks holds up no one else
+        private final Lane writer = new Lane();
+        private final AtomicInteger queued = new AtomicInteger();
+
+        Subscriber(Long doctorId, SseEmitter emitter, long since, boolean resync) {
+            this.doctorId = doctorId;
+            this.emitter = emitter;
+            this.since = since;
+            this.resync = resync;
+        }
+
+        // Never blocks: queues the frame for the writer, or closes a dashboard that stopped keeping up
+        void offer(Set<DataWithMediaType> frame) {
+            if (closed) {
+                return;
+            }
+            if (queued.incrementAndGet() > maxQueued) {
+                close(null);
+                return;
+            }
+            writer.execute(() -> {
+                queued.decrementAndGet();
+                if (!closed) {
+                    try {
+                        emitter.send(frame);
+                    } catch (IOException | IllegalStateException e) {
+                        // The dashboard went away; the container reports it too, but stop writing to it right now
+                        close(e);
+                    }
+                }
+            });
+        }
+
+        // Frames still queued are skipped; the emitter is completed once a write in progress has returned
+        void close(Throwable error) {
+            closed = true;
+            unsubscribe(this);
+            writer.execute(() -> {
+                if (error == null) {
+                    emitter.complete();
+                } else {
+                    emitter.completeWithError(error);
+                }
+            });
+        }
+    }
+
+    private final class Channel {
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        // Loads, numbers and fans out this doctor's events, and replays to new subscribers
+        private final Lane lane = new Lane();
+        // Only touched on the lane
+        private final ArrayDeque<Event> recent = new ArrayDeque<>();
+        // Newest sequence number this channel can no longer replay: the last one dropped from the buffer, or the
+        // last one published before the channel was opened
+        private long forgotten;
+        private volatile long lastSequence;
+
+        Channel(long openedAfter) {
+            this.forgotten = openedAfter;
+            this.lastSequence = openedAfter;
+        }
+    }
+
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("keep-alive").build();
+
+    @Value("${appointment.events.replay-size:100}")
+    private int replaySize;
+
+    @Value("${appointment.events.max-queued:200}")
+    private int maxQueued;
+
+    private final ObjectMapper objectMapper;
+    // Event ids are "<boot nonce>-<sequence>", so an id from a previous run is never mistaken for one of ours
+    private final String bootNonce = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+    private final ExecutorService workers;
+
+    public AppointmentEventHub(ObjectMapper objectMapper, Environment environment,
+                               @Value("${appointment.events.threads:16}") int threads) {
+        this.objectMapper = objectMapper;
+        this.workers = newWorkers(environment, threads);
+    }
+
+    // A lane queues at most one drain at a time, so the work queue never holds more entries than there are lanes
+    private static ExecutorService newWorkers(Environment environment, int threads) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            // A blocked write parks a virtual thread, which costs next to nothing
+            return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                    new VirtualThreadTaskExecutor("appointment-events-").getVirtualThreadFactory());
+        }
+        // Threads only live while lanes have work; a blocked write holds one until the container gives up on it
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "appointment-events-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    // Opens a dashboard stream for the doctor; lastEventId is the Last-Event-ID header of a reconnect, if any
+    public SseEmitter subscribe(Long doctorId, String lastEventId) {
+        SseEmitter emitter = newEmitter();
+        Subscriber[] added = new Subscriber[1];
+        Channel channel = channels.compute(doctorId, (id, existing) -> {
+            Channel open = existing != null ? existing : new Channel(sequence.get());
+            Long last = lastEventId == null || lastEventId.isBlank() ? null : parse(lastEventId);
+            added[0] = new Subscriber(doctorId, emitter, last == null ? open.lastSequence : last,
+                    last == null && lastEventId != null && !lastEventId.isBlank());
+            open.subscribers.add(added[0]);
+            return open;
+        });
+        Subscriber subscriber = added[0];
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        channel.lane.execute(() -> start(channel, subscriber));
+        return emitter;
+    }
+
+    // Publishes a change to the doctor's dashboards once the current transaction commits (right away without
+    // one). The payload is only loaded when someone is listening, on that doctor's lane
+    public void publish(String type, Long doctorId, Supplier<AppointmentDTO> payload) {
+        if (doctorId == null || !channels.containsKey(doctorId)) {
+            return;
+        }
+        Runnable dispatch = () -> {
+            Channel channel = channels.get(doctorId);
+            if (channel != null) {
+                channel.lane.execute(() -> deliver(channel, type, payload));
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch.run();
+                }
+            });
+        } else {
+            dispatch.run();
+        }
+    }
+
+    public int getSubscriberCount() {
+        return channels.values().stream().mapToInt(channel -> channel.subscribers.size()).sum();
+    }
+
+    // A comment line now and then so proxies and load balancers do not close idle streams
+    @Scheduled(fixedDelayString = "${appointment.events.heartbeat-ms:25000}")
+    public void heartbeat() {
+        channels.values().forEach(channel -> {
+            for (Subscriber subscriber : channel.subscribers) {
+                if (subscriber.live) {
+                    subscriber.offer(HEARTBEAT);
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    // Tests hand out emitters that record what is written to them
+    SseEmitter newEmitter() {
+        return new SseEmitter();
+    }
+
+    private void deliver(Channel channel, String type, Supplier<AppointmentDTO> payload) {
+        try {
+            AppointmentDTO appointment = payload.get();
+            if (appointment == null) {
+                return;
+            }
+            long next = sequence.incrementAndGet();
+            Event event = new Event(next, SseEmitter.event()
+                    .id(bootNonce + "-" + next)
+                    .name(type)
+                    .data(objectMapper.writeValueAsString(appointment))
+                    .build());
+            channel.recent.addLast(event);
+            while (channel.recent.size() > replaySize) {
+                channel.forgotten = channel.recent.removeFirst().sequence();
+            }
+            channel.lastSequence = next;
+            for (Subscriber subscriber : channel.subscribers) {
+                if (subscriber.live) {
+                    subscriber.offer(event.frame());
+                }
+            }
+        } catch (Exception e) {
+            System.out.println("Error: " + e);
+        }
+    }
+
+    // Runs on the channel lane, so no live event can slip in between the replay and going live
+    private void start(Channel channel, Subscriber subscriber) {
+        if (!channel.subscribers.contains(subscriber)) {
+            return;
+        }
+        if (subscriber.resync || subscriber.since < channel.forgotten) {
+            subscriber.offer(SseEmitter.event().name(RESYNC).data("{}").build());
+        } else {
+            for (Event event : channel.recent) {
+                if (event.sequence() > subscriber.since) {
+                    subscriber.offer(event.frame());
+                }
+            }
+        }
+        subscriber.live = true;
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscriber.closed = true;
+        channels.computeIfPresent(subscriber.doctorId, (id, channel) -> {
+            channel.subscribers.remove(subscriber);
+            return channel.subscribers.isEmpty() ? null : channel;
+        });
+    }
+
+    private Long parse(String eventId) {
+        if (!eventId.startsWith(bootNonce + "-")) {
+            return null;
+        }
+        try {
+            return Long.parseLong(eventId.substring(bootNonce.length() + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.project.back_end.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.repo.AppointmentRepository;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.transaction.Transactional;
+
+// Admin reporting export: rows go from the database cursor straight to the response, one at a time
+@Service
+@Timed("app.service")
+public class AppointmentExportService {
+
+    public static final String CSV = "csv";
+    public static final String NDJSON = "ndjson";
+
+    private static final String CSV_HEADER =
+            "id,appointmentTime,status,doctorId,doctorName,patientId,patientName,patientEmail,patientPhone,patientAddress";
+
+    private final AppointmentRepository appointmentRepository;
+    private final ObjectMapper objectMapper;
+
+    public AppointmentExportService(AppointmentRepository appointmentRepository, ObjectMapper objectMapper) {
+        this.appointmentRepository = appointmentRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public static boolean isSupported(String format) {
+        return CSV.equals(format) || NDJSON.equals(format);
+    }
+
+    // Writes appointments in [from, to) (optionally one doctor's) and returns the row count.
+    // Rows are DTO projections, so nothing is attached to the persistence context while streaming
+    @Transactional
+    public long export(LocalDateTime from, LocalDateTime to, Long doctorId, String format, OutputStream out)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try (Stream<AppointmentDTO> rows = doctorId == null
+                ? appointmentRepository.streamDtoByAppointmentTimeRange(from, to)
+                : appointmentRepository.streamDtoByDoctorIdAndAppointmentTimeRange(doctorId, from, to)) {
+            long count = NDJSON.equals(format) ? writeNdjson(rows.iterator(), writer) : writeCsv(rows.iterator(), writer);
+            writer.flush();
+            return count;
+        }
+    }
+
+    private long writeCsv(Iterator<AppointmentDTO> rows, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        long count = 0;
+        while (rows.hasNext()) {
+            AppointmentDTO a = rows.next();
+            writer.write(a.getId() + "," + a.getAppointmentTime() + "," + a.getStatus() + ","
+                    + a.getDoctorId() + "," + csv(a.getDoctorName()) + ","
+                    + a.getPatientId() + "," + csv(a.getPatientName()) + "," + csv(a.getPatientEmail()) + ","
+                    + csv(a.getPatientPhone()) + "," + csv(a.getPatientAddress()));
+            writer.write("\r\n");
+            count++;
+        }
+        return count;
+    }
+
+    private long writeNdjson(Iterator<AppointmentDTO> rows, Writer writer) throws IOException {
+        long count = 0;
+        // The buffered writer does the flushing; one flush per row would defeat it
+        try (SequenceWriter json = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(writer)) {
+            while (rows.hasNext()) {
+                json.write(rows.next());
+                count++;
+            }
+        }
+        if (count > 0) {
+            writer.write("\n");
+        }
+        return count;
+    }
+
+    // RFC 4180 quoting; a leading =, +, - or @ is neutralised so spreadsheets do not evaluate it
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (!value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                || value.indexOf('\r') >= 0) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
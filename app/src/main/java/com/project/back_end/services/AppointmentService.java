@@ -3,52 +3,194 @@ package com.project.back_end.services;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
 
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import com.project.back_end.DTO.AppointmentDTO;
 import com.project.back_end.models.Appointment;
-import com.project.back_end.models.Patient;
 import com.project.back_end.repo.AppointmentRepository;
-import com.project.back_end.repo.DoctorRepository;
-import com.project.back_end.repo.PatientRepository;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 
 @Service
+@Timed("app.service")
 public class AppointmentService {
 
+    static final String INVALID_REFERENCE = "Invalid patient id or appointment data";
+
     private final AppointmentRepository appointmentRepository;
     private final com.project.back_end.services.Service service;
-    private final TokenService tokenService;
-    private final PatientRepository patientRepository;
-    private final DoctorRepository doctorRepository;
+    private final SlotOccupancyIndex slotIndex;
+    private final SlotLocks slotLocks;
+    private final Validator validator;
+    private final AppointmentEventHub eventHub;
 
     public AppointmentService(AppointmentRepository appointmentRepository,
-                              com.project.back_end.services.Service service, TokenService tokenService,
-                              PatientRepository patientRepository, DoctorRepository doctorRepository) {
+                              com.project.back_end.services.Service service,
+                              SlotOccupancyIndex slotIndex, SlotLocks slotLocks, Validator validator,
+                              AppointmentEventHub eventHub) {
         this.appointmentRepository = appointmentRepository;
         this.service = service;
-        this.tokenService = tokenService;
-        this.patientRepository = patientRepository;
-        this.doctorRepository = doctorRepository;
+        this.slotIndex = slotIndex;
+        this.slotLocks = slotLocks;
+        this.validator = validator;
+        this.eventHub = eventHub;
     }
 
     public int bookAppointment(Appointment appointment) {
+        // booked: 1, slot taken or not offered: 0, invalid doctor: -1, internal error: -2,
+        // rejected by another constraint (unknown patient, bad column value): -3
+        Long doctorId = appointment.getDoctor().getId();
+        Lock lock = slotLocks.lockFor(doctorId, appointment.getAppointmentTime());
+        lock.lock();
         try {
+            // Check and insert under the slot lock so two patients cannot both pass the check
+            int out = service.validateAppointment(appointment);
+            if (out != 1) {
+                return out;
+            }
             appointmentRepository.save(appointment);
+            slotIndex.markBooked(doctorId, appointment.getAppointmentTime());
+            publish(AppointmentEventHub.BOOKED, doctorId, appointment.getId());
             return 1;
+        } catch (DataIntegrityViolationException e) {
+            if (!isSlotTaken(e)) {
+                System.out.println("Error: " + e);
+                return -3;
+            }
+            // Another instance booked the slot first; the unique key on (doctor_id, appointment_time) caught it
+            slotIndex.markBooked(doctorId, appointment.getAppointmentTime());
+            return 0;
         } catch (Exception e) {
             System.out.println("Error: " + e);
-            return 0;
+            return -2;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // One result per submitted appointment, in request order
+    public List<Map<String, Object>> bookAppointments(List<Appointment> appointments) {
+        List<Map<String, Object>> results = new ArrayList<>(appointments.size());
+        List<Integer> candidates = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+
+        for (int i = 0; i < appointments.size(); i++) {
+            Appointment appointment = appointments.get(i);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("index", i);
+            results.add(result);
+
+            String invalid = invalidReason(appointment);
+            if (invalid != null) {
+                result.put("status", "invalid");
+                result.put("message", invalid);
+            } else if (!seen.add(appointment.getDoctor().getId() + "@" + appointment.getAppointmentTime())) {
+                result.put("status", "conflict");
+                result.put("message", "Slot requested more than once in this batch");
+            } else {
+                appointment.setId(null); // always a new row, never a merge into an existing one
+                candidates.add(i);
+            }
+        }
+
+        List<Lock> locks = slotLocks.lockAll(candidates.stream().map(appointments::get).toList());
+        try {
+            // Check every candidate against the occupancy index first, then insert the survivors in one batch
+            List<Integer> accepted = new ArrayList<>();
+            for (int i : candidates) {
+                int out = service.validateAppointment(appointments.get(i));
+                if (out == 1) {
+                    accepted.add(i);
+                } else {
+                    results.get(i).put("status", out == -1 ? "invalid" : "conflict");
+                    results.get(i).put("message", out == -1 ? "Invalid doctor id"
+                            : "Appointment already booked for given time or Doctor not available");
+                }
+            }
+
+            try {
+                appointmentRepository.saveAll(accepted.stream().map(appointments::get).toList());
+                for (int i : accepted) {
+                    Appointment appointment = appointments.get(i);
+                    slotIndex.markBooked(appointment.getDoctor().getId(), appointment.getAppointmentTime());
+                    publish(AppointmentEventHub.BOOKED, appointment.getDoctor().getId(), appointment.getId());
+                    results.get(i).put("status", "booked");
+                    results.get(i).put("id", appointment.getId());
+                }
+            } catch (Exception e) {
+                // The batch rolled back as a whole; retry row by row so each item gets its own outcome
+                System.out.println("Error: " + e);
+                for (int i : accepted) {
+                    Appointment appointment = appointments.get(i);
+                    appointment.setId(null);
+                    int out = bookAppointment(appointment);
+                    if (out == 1) {
+                        results.get(i).put("status", "booked");
+                        results.get(i).put("id", appointment.getId());
+                    } else if (out == -2) {
+                        results.get(i).put("status", "error");
+                        results.get(i).put("message", "Internal Server Error");
+                    } else if (out == -3) {
+                        results.get(i).put("status", "invalid");
+                        results.get(i).put("message", INVALID_REFERENCE);
+                    } else {
+                        results.get(i).put("status", "conflict");
+                        results.get(i).put("message",
+                                "Appointment already booked for given time or Doctor not available");
+                    }
+                }
+            }
+        } finally {
+            slotLocks.unlockAll(locks);
+        }
+        return results;
+    }
+
+    // Only the slot's unique key means "taken"; a foreign key or column constraint is a bad request. MySQL may
+    // report the key qualified with its table name
+    static boolean isSlotTaken(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                String name = violation.getConstraintName();
+                return name != null && name.toLowerCase().endsWith(Appointment.SLOT_CONSTRAINT);
+            }
         }
+        return false;
+    }
+
+    // Why a batch item cannot even be checked against the schedule, or null when it can
+    private String invalidReason(Appointment appointment) {
+        if (appointment == null) {
+            return "Appointment is required";
+        }
+        Set<ConstraintViolation<Appointment>> violations = validator.validate(appointment);
+        if (!violations.isEmpty()) {
+            return violations.iterator().next().getMessage();
+        }
+        if (appointment.getDoctor() == null || appointment.getDoctor().getId() == null) {
+            return "Doctor id is required";
+        }
+        if (appointment.getAppointmentTime() == null) {
+            return "Appointment time is required";
+        }
+        return null;
     }
 
     public ResponseEntity<Map<String, String>> updateAppointment(Appointment appointment) {
@@ -64,20 +206,43 @@ public class AppointmentService {
             response.put("message", "Patient Id mismatch");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
-        int out = service.validateAppointment(appointment);
-        if (out == 1) {
-            try {
+        Lock lock = slotLocks.lockFor(appointment.getDoctor().getId(), appointment.getAppointmentTime());
+        lock.lock();
+        int out;
+        try {
+            out = service.validateAppointment(appointment);
+            if (out == 1) {
                 appointmentRepository.save(appointment);
+                slotIndex.release(result.get().getDoctor().getId(), result.get().getAppointmentTime());
+                slotIndex.markBooked(appointment.getDoctor().getId(), appointment.getAppointmentTime());
+                Long oldDoctorId = result.get().getDoctor().getId();
+                if (oldDoctorId.equals(appointment.getDoctor().getId())) {
+                    publish(AppointmentEventHub.UPDATED, oldDoctorId, appointment.getId());
+                } else {
+                    // Moved to another doctor: it leaves one dashboard and shows up on the other
+                    AppointmentDTO before = snapshot(result.get());
+                    eventHub.publish(AppointmentEventHub.CANCELLED, oldDoctorId, () -> before);
+                    publish(AppointmentEventHub.BOOKED, appointment.getDoctor().getId(), appointment.getId());
+                }
                 response.put("message", "Appointment Updated Successfully");
                 return ResponseEntity.status(HttpStatus.OK).body(response);
-
-            } catch (Exception e) {
+            }
+        } catch (DataIntegrityViolationException e) {
+            if (!isSlotTaken(e)) {
                 System.out.println("Error: " + e);
-                response.put("message", "Internal Server Error");
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+                response.put("message", INVALID_REFERENCE);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
             }
+            out = 0;
+        } catch (Exception e) {
+            System.out.println("Error: " + e);
+            response.put("message", "Internal Server Error");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        } finally {
+            lock.unlock();
+        }
 
-        } else if (out == -1) {
+        if (out == -1) {
             response.put("message", "Invalid doctor id");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
@@ -87,12 +252,10 @@ public class AppointmentService {
 
     }
 
-    public ResponseEntity<Map<String, String>> cancelAppointment(long id, String token) {
+    public ResponseEntity<Map<String, String>> cancelAppointment(long id, long patientId) {
         Map<String, String> response = new HashMap<>();
         Optional<Appointment> appointment = appointmentRepository.findById(id);
-        String extractedToken = tokenService.extractEmail(token);
-        Patient patient = patientRepository.findByEmail(extractedToken);
-        if (patient.getId() != appointment.get().getPatient().getId()) {
+        if (appointment.isPresent() && patientId != appointment.get().getPatient().getId()) {
             response.put("message", "Patient Id mismatch");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
@@ -100,6 +263,10 @@ public class AppointmentService {
         if (appointment.isPresent()) {
             try {
                 appointmentRepository.delete(appointment.get());
+                slotIndex.release(appointment.get().getDoctor().getId(), appointment.get().getAppointmentTime());
+                // The row is gone, so the event carries the appointment as it was loaded
+                AppointmentDTO cancelled = snapshot(appointment.get());
+                eventHub.publish(AppointmentEventHub.CANCELLED, cancelled.getDoctorId(), () -> cancelled);
                 response.put("message", "Appointment Deleted Successfully");
                 return ResponseEntity.status(HttpStatus.OK).body(response);
             } catch (Exception e) {
@@ -113,50 +280,60 @@ public class AppointmentService {
     }
 
     @Transactional
-    public Map<String, Object> getAppointment(String pname, LocalDate date, String token) {
+    public Map<String, Object> getAppointment(String pname, LocalDate date, Long doctorId) {
         Map<String, Object> map = new HashMap<>();
-        String extractedEmail = tokenService.extractEmail(token);
-        Long doctorId = doctorRepository.findByEmail(extractedEmail).getId();
         LocalDateTime startOfDay = date.atStartOfDay();
         LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
 
-        List<Appointment> appointments;
+        List<AppointmentDTO> appointmentDTOs;
 
         if (pname.equals("null")) {
             // If pname is null or empty, fetch all appointments for that date
 
-            appointments = appointmentRepository
-                    .findByDoctorIdAndAppointmentTimeBetween(doctorId, startOfDay, endOfDay);
+            appointmentDTOs = appointmentRepository
+                    .findDtoByDoctorIdAndAppointmentTimeBetween(doctorId, startOfDay, endOfDay);
         } else {
             // Filter by patient name
-            appointments = appointmentRepository
-                    .findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween(
+            appointmentDTOs = appointmentRepository
+                    .findDtoByDoctorIdAndPatientNameAndAppointmentTimeBetween(
                             doctorId, pname, startOfDay, endOfDay);
         }
 
-        List<AppointmentDTO> appointmentDTOs = appointments.stream()
-                .map(app -> new AppointmentDTO(
-                        app.getId(),
-                        app.getDoctor().getId(), // Simplified doctor info
-                        app.getDoctor().getName(),
-                        app.getPatient().getId(),
-                        app.getPatient().getName(),
-                        app.getPatient().getEmail(),
-                        app.getPatient().getPhone(),
-                        app.getPatient().getAddress(),
-                        app.getAppointmentTime(),
-                        app.getStatus()))
-                .collect(Collectors.toList());
-
         map.put("appointments", appointmentDTOs);
         return map;
 
     }
 
+    // Ids of the doctor's appointments on the given day
+    public List<Long> getAppointmentIds(LocalDate date, Long doctorId) {
+        return appointmentRepository.findIdsByDoctorIdAndAppointmentTimeBetween(doctorId,
+                date.atStartOfDay(), date.atTime(LocalTime.MAX));
+    }
+
     @Transactional
-    public void changeStatus(long appointmentId)
+    // false when there is no appointment with that id
+    public boolean changeStatus(long appointmentId)
     {
-        appointmentRepository.updateStatus(1, appointmentId);
+        if (appointmentRepository.updateStatus(1, appointmentId) == 0) {
+            return false;
+        }
+        // Routed by doctor now, so the event is queued behind that doctor's earlier ones
+        appointmentRepository.findDoctorIdById(appointmentId)
+                .ifPresent(doctorId -> publish(AppointmentEventHub.STATUS_CHANGED, doctorId, appointmentId));
+        return true;
+    }
+
+    // Tells the doctor's open dashboards about a change; the appointment is read back only if one is listening
+    private void publish(String type, Long doctorId, Long appointmentId) {
+        eventHub.publish(type, doctorId, () -> appointmentRepository.findDtoById(appointmentId).orElse(null));
+    }
+
+    private static AppointmentDTO snapshot(Appointment appointment) {
+        return new AppointmentDTO(appointment.getId(), appointment.getDoctor().getId(),
+                appointment.getDoctor().getName(), appointment.getPatient().getId(),
+                appointment.getPatient().getName(), appointment.getPatient().getEmail(),
+                appointment.getPatient().getPhone(), appointment.getPatient().getAddress(),
+                appointment.getAppointmentTime(), appointment.getStatus());
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,334 @@
+package com.project.back_end.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Bulk onboarding of doctors and patients from CSV. The upload is parsed record by record and handled in
+ * chunks: one set-based lookup finds rows that already exist, the rest go in with a single saveAll, which
+ * commits the chunk in its own transaction as a JDBC batch. A failing chunk is retried row by row so every
+ * problem is reported against its line number.
+ */
+@Service
+@Timed("app.service")
+public class BulkImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final List<String> DOCTOR_COLUMNS = List.of("name", "specialty", "email", "password", "phone");
+    private static final List<String> PATIENT_COLUMNS = List.of("name", "email", "password", "phone", "address");
+
+    // What differs between the doctor and the patient import
+    private interface Importer<T> {
+        List<String> requiredColumns();
+
+        // Throws IllegalArgumentException for values that cannot be converted
+        T toEntity(Map<String, String> row);
+
+        // Lower-cased uniqueness keys of an entity ("e:" email, "p:" phone)
+        List<String> keys(T entity);
+
+        // Keys of the chunk that already exist in the database, in one query
+        Set<String> existingKeys(List<T> chunk);
+
+        void saveAll(List<T> chunk);
+
+        void save(T entity);
+    }
+
+    // Counters and the (capped) list of per-row errors of one import
+    private static final class Report {
+        private final long startedAt = System.nanoTime();
+        private long rows;
+        private long imported;
+        private long failed;
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+
+        void error(int line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("line", line);
+                error.put("message", message);
+                errors.add(error);
+            }
+        }
+
+        Map<String, Object> toMap() {
+            long elapsedMs = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("rows", rows);
+            map.put("imported", imported);
+            map.put("failed", failed);
+            map.put("elapsedMs", elapsedMs);
+            map.put("rowsPerSecond", Math.round(rows * 1000.0 / elapsedMs));
+            // Parse errors are found before the chunk they belong to is written
+            errors.sort(Comparator.comparingInt(error -> (Integer) error.get("line")));
+            map.put("errors", errors);
+            map.put("errorsTruncated", failed > errors.size());
+            return map;
+        }
+    }
+
+    @Value("${import.chunk-size:500}")
+    private int chunkSize;
+
+    private final DoctorRepository doctorRepository;
+    private final PatientRepository patientRepository;
+    private final Validator validator;
+    private final DoctorDirectoryVersion directoryVersion;
+    private final DoctorSearchIndex searchIndex;
+
+    public BulkImportService(DoctorRepository doctorRepository, PatientRepository patientRepository,
+                             Validator validator, DoctorDirectoryVersion directoryVersion,
+                             DoctorSearchIndex searchIndex) {
+        this.doctorRepository = doctorRepository;
+        this.patientRepository = patientRepository;
+        this.validator = validator;
+        this.directoryVersion = directoryVersion;
+        this.searchIndex = searchIndex;
+    }
+
+    // Columns: name,specialty,email,password,phone[,availableTimes] with times separated by ';'
+    public Map<String, Object> importDoctors(InputStream csv) throws IOException {
+        return importRows(csv, new Importer<Doctor>() {
+            @Override
+            public List<String> requiredColumns() {
+                return DOCTOR_COLUMNS;
+            }
+
+            @Override
+            public Doctor toEntity(Map<String, String> row) {
+                Doctor doctor = new Doctor();
+                doctor.setName(row.get("name"));
+                doctor.setSpecialty(row.get("specialty"));
+                doctor.setEmail(row.get("email"));
+                doctor.setPassword(row.get("password"));
+                doctor.setPhone(row.get("phone"));
+                List<String> times = new ArrayList<>();
+                String availableTimes = row.get("availabletimes");
+                if (availableTimes != null) {
+                    for (String time : availableTimes.split(";")) {
+                        if (!time.isBlank()) {
+                            times.add(time.trim());
+                        }
+                    }
+                }
+                doctor.setAvailableTimes(times);
+                return doctor;
+            }
+
+            @Override
+            public List<String> keys(Doctor doctor) {
+                return List.of("e:" + lower(doctor.getEmail()));
+            }
+
+            @Override
+            public Set<String> existingKeys(List<Doctor> chunk) {
+                Set<String> existing = new HashSet<>();
+                for (String email : doctorRepository.findEmailsIn(chunk.stream().map(Doctor::getEmail).toList())) {
+                    existing.add("e:" + lower(email));
+                }
+                return existing;
+            }
+
+            @Override
+            public void saveAll(List<Doctor> chunk) {
+                doctorRepository.saveAll(chunk);
+                searchIndex.putAll(chunk);
+                directoryVersion.publish(directoryVersion.bump());
+            }
+
+            @Override
+            public void save(Doctor doctor) {
+                // Drop the id handed out by the rolled-back saveAll so this is an insert, not a merge
+                doctor.setId(null);
+                doctorRepository.save(doctor);
+                searchIndex.put(doctor);
+                directoryVersion.publish(directoryVersion.bump());
+            }
+        });
+    }
+
+    // Columns: name,email,password,phone,address
+    public Map<String, Object> importPatients(InputStream csv) throws IOException {
+        return importRows(csv, new Importer<Patient>() {
+            @Override
+            public List<String> requiredColumns() {
+                return PATIENT_COLUMNS;
+            }
+
+            @Override
+            public Patient toEntity(Map<String, String> row) {
+                Patient patient = new Patient();
+                patient.setName(row.get("name"));
+                patient.setEmail(row.get("email"));
+                patient.setPassword(row.get("password"));
+                patient.setPhone(row.get("phone"));
+                patient.setAddress(row.get("address"));
+                return patient;
+            }
+
+            @Override
+            public List<String> keys(Patient patient) {
+                return List.of("e:" + lower(patient.getEmail()), "p:" + patient.getPhone());
+            }
+
+            @Override
+            public Set<String> existingKeys(List<Patient> chunk) {
+                Set<String> existing = new HashSet<>();
+                for (Object[] match : patientRepository.findEmailsAndPhonesIn(
+                        chunk.stream().map(Patient::getEmail).toList(), chunk.stream().map(Patient::getPhone).toList())) {
+                    existing.add("e:" + lower((String) match[0]));
+                    existing.add("p:" + match[1]);
+                }
+                return existing;
+            }
+
+            @Override
+            public void saveAll(List<Patient> chunk) {
+                patientRepository.saveAll(chunk);
+            }
+
+            @Override
+            public void save(Patient patient) {
+                patient.setId(null);
+                patientRepository.save(patient);
+            }
+        });
+    }
+
+    private <T> Map<String, Object> importRows(InputStream csv, Importer<T> importer) throws IOException {
+        CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8)));
+        List<String> header = reader.next();
+        if (header == null) {
+            throw new IllegalArgumentException("The file is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            // Spreadsheet exports often start with a byte order mark
+            columns.put(lower(header.get(i).replace("\uFEFF", "").trim()), i);
+        }
+        for (String column : importer.requiredColumns()) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("Missing column: " + column + " (required: "
+                        + String.join(",", importer.requiredColumns()) + ")");
+            }
+        }
+
+        Report report = new Report();
+        Set<String> seen = new HashSet<>();
+        List<T> chunk = new ArrayList<>(chunkSize);
+        List<Integer> lines = new ArrayList<>(chunkSize);
+        while (true) {
+            List<String> record;
+            try {
+                record = reader.next();
+            } catch (IOException e) {
+                report.error(reader.getRecordLine(), e.getMessage());
+                break;
+            }
+            if (record == null) {
+                break;
+            }
+            report.rows++;
+            int line = reader.getRecordLine();
+            if (record.size() != header.size()) {
+                report.error(line, "Expected " + header.size() + " fields but found " + record.size());
+                continue;
+            }
+            Map<String, String> row = new HashMap<>();
+            for (Map.Entry<String, Integer> column : columns.entrySet()) {
+                String value = record.get(column.getValue()).trim();
+                row.put(column.getKey(), value.isEmpty() ? null : value);
+            }
+            try {
+                T entity = importer.toEntity(row);
+                Set<ConstraintViolation<T>> violations = validator.validate(entity);
+                if (!violations.isEmpty()) {
+                    report.error(line, violations.iterator().next().getMessage());
+                    continue;
+                }
+                chunk.add(entity);
+                lines.add(line);
+            } catch (IllegalArgumentException e) {
+                report.error(line, e.getMessage());
+                continue;
+            }
+            if (chunk.size() >= chunkSize) {
+                writeChunk(importer, chunk, lines, seen, report);
+                chunk.clear();
+                lines.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(importer, chunk, lines, seen, report);
+        }
+        return report.toMap();
+    }
+
+    private <T> void writeChunk(Importer<T> importer, List<T> chunk, List<Integer> lines, Set<String> seen,
+                                Report report) {
+        Set<String> existing = importer.existingKeys(chunk);
+        List<T> accepted = new ArrayList<>(chunk.size());
+        List<Integer> acceptedLines = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            List<String> keys = importer.keys(chunk.get(i));
+            if (keys.stream().anyMatch(existing::contains)) {
+                report.error(lines.get(i), "Already exists");
+            } else if (keys.stream().anyMatch(seen::contains)) {
+                report.error(lines.get(i), "Duplicate of an earlier row in this file");
+            } else {
+                seen.addAll(keys);
+                accepted.add(chunk.get(i));
+                acceptedLines.add(lines.get(i));
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+        try {
+            importer.saveAll(accepted);
+            report.imported += accepted.size();
+        } catch (Exception e) {
+            // The chunk was rolled back; insert row by row to find the offending rows
+            System.out.println("Error: " + e);
+            for (int i = 0; i < accepted.size(); i++) {
+                try {
+                    importer.save(accepted.get(i));
+                    report.imported++;
+                } catch (Exception rowError) {
+                    report.error(acceptedLines.get(i), "Could not be saved: " + rowError.getMessage());
+                }
+            }
+        }
+    }
+
+    private static String lower(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+}
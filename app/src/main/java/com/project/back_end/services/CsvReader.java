@@ -0,0 +1,77 @@
+package com.project.back_end.services;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Minimal RFC 4180 reader returning one record per call, so input of any size is read incrementally.
+// Quoted fields may contain commas, doubled quotes and line breaks; blank lines are skipped
+final class CsvReader {
+
+    private final Reader in;
+    private int line = 1;
+    private int recordLine;
+
+    CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    // The next record's fields, or null at end of input
+    List<String> next() throws IOException {
+        int c = in.read();
+        while (c == '\r' || c == '\n') {
+            if (c == '\n') {
+                line++;
+            }
+            c = in.read();
+        }
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                }
+                if (c == '"') {
+                    int n = in.read();
+                    if (n != '"') {
+                        quoted = false;
+                        c = n;
+                        continue;
+                    }
+                    field.append('"');
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                if (c == '\n') {
+                    line++;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+    }
+
+    // Line on which the record last returned by next() started (1-based, header included)
+    int getRecordLine() {
+        return recordLine;
+    }
+}
@@ -0,0 +1,61 @@
+package com.project.back_end.services;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Version stamp of the doctor directory, bumped on every doctor write. It lives in the one-row
+ * doctor_directory_version table, so every instance hands out the same tag for the same directory and tags
+ * stay valid across restarts. Plain JDBC on purpose: a native update through Hibernate would drop the whole
+ * second-level cache on every bump.
+ * <p>
+ * Requests never read the table. {@link #current} is a field that moves to this instance's own writes once they
+ * are in {@link DoctorSearchIndex}, and to everyone else's on the index's refresh poll, so a tag never runs ahead
+ * of what this instance serves and a write made elsewhere shows up within doctor.search.refresh-ms.
+ */
+@Component
+public class DoctorDirectoryVersion {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Version this instance hands out; -1 until the first read
+    private volatile long version = -1;
+
+    public DoctorDirectoryVersion(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Call inside the doctor write's transaction so both commit together. Returns the version the write moved the
+    // directory to; pass it to publish once the write is visible on this instance
+    public long bump() {
+        jdbcTemplate.update("UPDATE doctor_directory_version SET version = version + 1 WHERE id = 1");
+        return read();
+    }
+
+    // What the table holds right now; the row lock taken by bump makes this the caller's own version
+    public long read() {
+        Long version = jdbcTemplate.queryForObject("SELECT version FROM doctor_directory_version WHERE id = 1",
+                Long.class);
+        return version == null ? 0 : version;
+    }
+
+    // Hands out version from now on, unless a newer one was published already
+    public synchronized void publish(long version) {
+        if (version > this.version) {
+            this.version = version;
+        }
+    }
+
+    public long current() {
+        if (version < 0) {
+            // Only until the first refresh or write
+            publish(read());
+        }
+        return version;
+    }
+
+    // Strong ETag for any directory response built after this call
+    public String eTag() {
+        return "\"" + current() + "\"";
+    }
+}
@@ -0,0 +1,32 @@
+package com.project.back_end.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Works off the purge jobs of deleted doctors one bounded chunk per transaction, so no statement holds locks
+// on a doctor's whole appointment history. Jobs are claimed with SKIP LOCKED, so several instances can run it
+@Component
+public class DoctorPurgeRunner {
+
+    @Value("${doctor.purge.chunk-size:1000}")
+    private int chunkSize;
+
+    private final DoctorService doctorService;
+
+    public DoctorPurgeRunner(DoctorService doctorService) {
+        this.doctorService = doctorService;
+    }
+
+    @Scheduled(fixedDelayString = "${doctor.purge.poll-interval-ms:5000}")
+    public void purge() {
+        try {
+            while (doctorService.purgeNextChunk(chunkSize)) {
+                // next chunk
+            }
+        } catch (Exception e) {
+            // No job could be claimed (e.g. the database is unreachable); tried again on the next poll
+            System.out.println("Error: " + e);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.project.back_end.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.project.back_end.models.AvailabilitySlot;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.DoctorRepository;
+
+/**
+ * In-memory search index over the doctor directory, so filter and autocomplete calls (one per keystroke on the
+ * patient dashboard) never reach MySQL. Holds a bigram index on the name, an inverted index on the specialty,
+ * AM/PM bitmaps from the available times and the sorted word suffixes of every name for prefix lookups.
+ * <p>
+ * The directory is read from the database on first use. {@link DoctorService} and {@link BulkImportService} hand
+ * every doctor they write to {@link #put} or {@link #remove}, so this instance sees its own writes at once, and
+ * {@link #refresh} reloads everything when {@link DoctorDirectoryVersion} shows that the directory moved, which
+ * picks up writes made by other instances or with plain SQL. The same poll moves the version the directory
+ * endpoints tag their responses with, so they never query the version table either.
+ * <p>
+ * Readers work on an immutable view and never lock. A write does not rebuild the whole index: the view keeps the
+ * last full build, masks the entries that were replaced or removed since, and indexes the doctors written since in
+ * a small build of their own. Once that one grows past {@link #MAX_RECENT} doctors everything is folded into a new
+ * full build.
+ */
+@Component
+public class DoctorSearchIndex {
+
+    // Doctors written since the last full build before the next write rebuilds it; bounds the work per write
+    static final int MAX_RECENT = 256;
+
+    private static final class Snapshot {
+        // Positions in these arrays are the bit indexes of every BitSet below; sorted by doctor id
+        private final Doctor[] doctors;
+        private final long[] ids;
+        private final String[] names;
+        private final Map<String, BitSet> bigrams = new HashMap<>();
+        private final Map<String, BitSet> specialties = new HashMap<>();
+        private final BitSet morning = new BitSet();
+        private final BitSet afternoon = new BitSet();
+        // Each name from the start of every word, e.g. "ann lee" -> "ann lee", "lee"; sorted for prefix search
+        private final String[] suffixes;
+        private final int[] suffixDoctors;
+
+        Snapshot(Collection<Doctor> directory) {
+            doctors = directory.stream().sorted(Comparator.comparing(Doctor::getId)).toArray(Doctor[]::new);
+            ids = new long[doctors.length];
+            names = new String[doctors.length];
+            TreeMap<String, List<Integer>> bySuffix = new TreeMap<>();
+            for (int i = 0; i < doctors.length; i++) {
+                Doctor doctor = doctors[i];
+                String name = lower(doctor.getName());
+                ids[i] = doctor.getId();
+                names[i] = name;
+                for (int c = 0; c + 2 <= name.length(); c++) {
+                    bigrams.computeIfAbsent(name.substring(c, c + 2), k -> new BitSet()).set(i);
+                }
+                for (int c = 0; c < name.length(); c++) {
+                    if (name.charAt(c) != ' ' && (c == 0 || name.charAt(c - 1) == ' ')) {
+                        bySuffix.computeIfAbsent(name.substring(c), k -> new ArrayList<>()).add(i);
+                    }
+                }
+                specialties.computeIfAbsent(lower(doctor.getSpecialty()), k -> new BitSet()).set(i);
+                if (doctor.getAvailabilitySlots() != null) {
+                    for (AvailabilitySlot slot : doctor.getAvailabilitySlots()) {
+                        (slot.isMorning() ? morning : afternoon).set(i);
+                    }
+                }
+            }
+            int size = bySuffix.values().stream().mapToInt(List::size).sum();
+            suffixes = new String[size];
+            suffixDoctors = new int[size];
+            int n = 0;
+            for (Map.Entry<String, List<Integer>> entry : bySuffix.entrySet()) {
+                for (int i : entry.getValue()) {
+                    suffixes[n] = entry.getKey();
+                    suffixDoctors[n++] = i;
+                }
+            }
+        }
+
+        // Position of the doctor, or -1 when it is not in this build
+        int position(long doctorId) {
+            int i = Arrays.binarySearch(ids, doctorId);
+            return i < 0 ? -1 : i;
+        }
+
+        // Positions of the doctors matching the filter; lowerName is already lower case
+        BitSet filter(String lowerName, String specialty, String amOrPm) {
+            BitSet hits = new BitSet(doctors.length);
+            hits.set(0, doctors.length);
+            if (lowerName != null) {
+                for (int c = 0; c + 2 <= lowerName.length() && !hits.isEmpty(); c++) {
+                    hits.and(bigrams.getOrDefault(lowerName.substring(c, c + 2), new BitSet()));
+                }
+                // The bigrams only narrow the candidates; the substring check decides
+                for (int i = hits.nextSetBit(0); i >= 0; i = hits.nextSetBit(i + 1)) {
+                    if (!names[i].contains(lowerName)) {
+                        hits.clear(i);
+                    }
+                }
+            }
+            if (specialty != null) {
+                hits.and(specialties.getOrDefault(lower(specialty), new BitSet()));
+            }
+            if (amOrPm != null && !amOrPm.isBlank()) {
+                hits.and(amOrPm.equalsIgnoreCase("am") ? morning : afternoon);
+            }
+            return hits;
+        }
+
+        // Positions of the doctors with a name word starting with lowerPrefix
+        BitSet prefixMatches(String lowerPrefix) {
+            BitSet matches = new BitSet(doctors.length);
+            int from = Arrays.binarySearch(suffixes, lowerPrefix);
+            for (int i = from < 0 ? -from - 1 : from; i < suffixes.length && suffixes[i].startsWith(lowerPrefix); i++) {
+                matches.set(suffixDoctors[i]);
+            }
+            return matches;
+        }
+    }
+
+    // What readers search: the last full build minus its stale positions (replaced or removed since), plus the
+    // doctors written since in a build of their own
+    private record View(Snapshot base, BitSet stale, Snapshot recent) {
+    }
+
+    private final DoctorRepository doctorRepository;
+    private final DoctorDirectoryVersion directoryVersion;
+
+    private volatile View view;
+    // Only touched while holding the lock on this index: the whole directory by id, the doctors written since the
+    // last full build and the positions of that build they made stale
+    private Map<Long, Doctor> directory;
+    private final Map<Long, Doctor> recent = new HashMap<>();
+    private final BitSet stale = new BitSet();
+    // Directory version the last load started from
+    private long loadedVersion;
+
+    public DoctorSearchIndex(DoctorRepository doctorRepository, DoctorDirectoryVersion directoryVersion) {
+        this.doctorRepository = doctorRepository;
+        this.directoryVersion = directoryVersion;
+    }
+
+    // Same contract as the SQL filter: any argument may be null to skip it; name is a case-insensitive substring,
+    // specialty a case-insensitive exact match, amOrPm "am" for a slot before noon and anything else for after
+    public List<Doctor> filter(String name, String specialty, String amOrPm) {
+        View index = view();
+        String lowerName = name == null ? null : lower(name);
+        BitSet hits = index.base().filter(lowerName, specialty, amOrPm);
+        hits.andNot(index.stale());
+        BitSet recentHits = index.recent().filter(lowerName, specialty, amOrPm);
+        List<Doctor> doctors = new ArrayList<>(hits.cardinality() + recentHits.cardinality());
+        for (int i = hits.nextSetBit(0); i >= 0; i = hits.nextSetBit(i + 1)) {
+            doctors.add(index.base().doctors[i]);
+        }
+        if (!recentHits.isEmpty()) {
+            for (int i = recentHits.nextSetBit(0); i >= 0; i = recentHits.nextSetBit(i + 1)) {
+                doctors.add(index.recent().doctors[i]);
+            }
+            doctors.sort(Comparator.comparing(Doctor::getId));
+        }
+        return doctors;
+    }
+
+    // Up to limit doctors with a name word starting with prefix; whole-name matches first, then by name
+    public List<Doctor> autocomplete(String prefix, int limit) {
+        String lowerPrefix = prefix == null ? "" : lower(prefix).trim();
+        if (lowerPrefix.isEmpty()) {
+            return List.of();
+        }
+        View index = view();
+        BitSet matches = index.base().prefixMatches(lowerPrefix);
+        matches.andNot(index.stale());
+        List<Map.Entry<String, Doctor>> named = new ArrayList<>();
+        addNamed(named, index.base(), matches);
+        addNamed(named, index.recent(), index.recent().prefixMatches(lowerPrefix));
+        return named.stream()
+                .sorted(Comparator.comparing((Map.Entry<String, Doctor> e) -> !e.getKey().startsWith(lowerPrefix))
+                        .thenComparing(Map.Entry::getKey)
+                        .thenComparing(e -> e.getValue().getId()))
+                .limit(limit)
+                .map(Map.Entry::getValue)
+                .toList();
+    }
+
+    private static void addNamed(List<Map.Entry<String, Doctor>> named, Snapshot build, BitSet positions) {
+        for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+            named.add(Map.entry(build.names[i], build.doctors[i]));
+        }
+    }
+
+    // Adds or replaces a doctor that was just written to the database
+    public void put(Doctor doctor) {
+        putAll(List.of(doctor));
+    }
+
+    public synchronized void putAll(Collection<Doctor> doctors) {
+        if (directory == null) {
+            // Not loaded yet; the first read picks these up from the database
+            return;
+        }
+        for (Doctor doctor : doctors) {
+            directory.put(doctor.getId(), doctor);
+            recent.put(doctor.getId(), doctor);
+            markStale(doctor.getId());
+        }
+        publish();
+    }
+
+    public synchronized void remove(Long doctorId) {
+        if (directory != null && directory.remove(doctorId) != null) {
+            recent.remove(doctorId);
+            markStale(doctorId);
+            publish();
+        }
+    }
+
+    // Drops everything so the next read reloads from the database, e.g. after doctors were written with plain SQL
+    public synchronized void invalidate() {
+        directory = null;
+        view = null;
+    }
+
+    // Reloads the directory when its version moved since the last load, then hands that version out. That
+    // includes this instance's own writes, which are already in the index, so a busy directory is read at most
+    // once per interval
+    @Scheduled(fixedDelayString = "${doctor.search.refresh-ms:10000}")
+    public void refresh() {
+        try {
+            long latest = directoryVersion.read();
+            // Not loaded yet: the first read loads the current directory anyway
+            if (view != null && latest != loadedVersion) {
+                synchronized (this) {
+                    if (directory != null) {
+                        load();
+                    }
+                }
+            }
+            directoryVersion.publish(latest);
+        } catch (Exception e) {
+            System.out.println("Error: " + e);
+        }
+    }
+
+    private View view() {
+        View index = view;
+        if (index != null) {
+            return index;
+        }
+        synchronized (this) {
+            if (view == null) {
+                load();
+            }
+            return view;
+        }
+    }
+
+    // Writers wait for a reload instead of racing it, so none of their doctors is lost to the swap
+    private void load() {
+        // Read before loading, so a write that commits during the load moves the version and is reloaded next time
+        long version = directoryVersion.read();
+        Map<Long, Doctor> loaded = new HashMap<>();
+        for (Doctor doctor : doctorRepository.findAllWithAvailableTimes()) {
+            loaded.put(doctor.getId(), doctor);
+        }
+        directory = loaded;
+        loadedVersion = version;
+        rebuild();
+        directoryVersion.publish(version);
+    }
+
+    private void rebuild() {
+        recent.clear();
+        stale.clear();
+        view = new View(new Snapshot(directory.values()), new BitSet(), new Snapshot(List.of()));
+    }
+
+    private void markStale(long doctorId) {
+        int position = view.base().position(doctorId);
+        if (position >= 0) {
+            stale.set(position);
+        }
+    }
+
+    private void publish() {
+        if (recent.size() > MAX_RECENT) {
+            rebuild();
+        } else {
+            view = new View(view.base(), (BitSet) stale.clone(), new Snapshot(recent.values()));
+        }
+    }
+
+    private static String lower(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
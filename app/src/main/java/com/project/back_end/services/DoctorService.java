@@ -2,82 +2,86 @@ package com.project.back_end.services;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.project.back_end.DTO.Login;
-import com.project.back_end.models.Appointment;
+import com.project.back_end.DTO.PageCursor;
 import com.project.back_end.models.Doctor;
+import com.project.back_end.models.DoctorPurgeJob;
 import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorPurgeJobRepository;
 import com.project.back_end.repo.DoctorRepository;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
 
 @Service
+@Timed("app.service")
 public class DoctorService {
 
+    @Value("${doctor.purge.max-attempts:10}")
+    private int purgeMaxAttempts;
+
+    @Value("${doctor.purge.max-backoff-seconds:300}")
+    private long purgeMaxBackoffSeconds;
+
     private final DoctorRepository doctorRepository;
 
     private final AppointmentRepository appointmentRepository;
 
     private final TokenService tokenService;
 
+    private final SlotOccupancyIndex slotIndex;
+
+    private final DoctorDirectoryVersion directoryVersion;
+
+    private final DoctorPurgeJobRepository purgeJobRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final DoctorSearchIndex searchIndex;
+
     public DoctorService(DoctorRepository doctorRepository, AppointmentRepository appointmentRepository,
-                         TokenService tokenService) {
+                         TokenService tokenService, SlotOccupancyIndex slotIndex,
+                         DoctorDirectoryVersion directoryVersion, DoctorPurgeJobRepository purgeJobRepository,
+                         TransactionTemplate transactionTemplate, DoctorSearchIndex searchIndex) {
         this.doctorRepository = doctorRepository;
         this.appointmentRepository = appointmentRepository;
         this.tokenService = tokenService;
+        this.slotIndex = slotIndex;
+        this.directoryVersion = directoryVersion;
+        this.purgeJobRepository = purgeJobRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.searchIndex = searchIndex;
     }
 
 
-    @Transactional
     public List<String> getDoctorAvailability(Long doctorId, LocalDate date) {
-        Optional<Doctor> doctor = doctorRepository.findById(doctorId);
+        // Served from the in-memory occupancy index; only the first read of a day touches the database
+        List<String> availableSlots = slotIndex.getAvailableSlots(doctorId, date);
 
-        if (doctor.isEmpty()) {
+        if (availableSlots == null) {
             return List.of("Doctor not found with ID: " + doctorId);
         }
-
-        List<String> availableSlots = doctor.get().getAvailableTimes().stream()
-                .map(Object::toString)
-                .collect(Collectors.toList());
-
-        // Convert LocalDate to LocalDateTime (start and end of the day)
-        LocalDateTime startOfDay = date.atStartOfDay();
-        LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
-
-        // Fetch the appointments for this doctor on the given date
-        List<Appointment> appointments = appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(doctorId,
-                startOfDay, endOfDay);
-
-        // Set of booked slots for the doctor on this date
-        Set<String> bookedSlots = appointments.stream()
-                .map(appt -> {
-                    LocalDateTime start = appt.getAppointmentTime();
-                    LocalDateTime end = start.plusHours(1); // Add 1 hour to the start time to get the end time
-                    return formatSlot(start, end); // Format the slot as "HH:mm-HH:mm"
-                })
-                .collect(Collectors.toSet());
-
-        // Filter out booked slots from the available slots
-        return availableSlots.stream()
-                .filter(slot -> !bookedSlots.contains(slot))
-                .collect(Collectors.toList());
+        return availableSlots;
     }
 
-    private String formatSlot(LocalDateTime start, LocalDateTime end) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm");
-        return start.format(formatter) + "-" + end.format(formatter);
+    // Free slots per day for a date range, or null when the doctor does not exist
+    public Map<LocalDate, List<String>> getDoctorAvailability(Long doctorId, LocalDate from, LocalDate to) {
+        return slotIndex.getAvailableCalendar(doctorId, from, to);
     }
 
     public int saveDoctor(Doctor doctor) {
@@ -89,8 +93,18 @@ public class DoctorService {
             return -1;
         }
         try {
-            doctorRepository.save(doctor);
+            long version = transactionTemplate.execute(status -> {
+                doctorRepository.save(doctor);
+                return directoryVersion.bump();
+            });
+            // A cached "no doctor with this email" result must not survive the insert
+            doctorRepository.evictFromCache(doctor.getId());
+            searchIndex.put(doctor);
+            directoryVersion.publish(version);
             return 1;
+        } catch (DataIntegrityViolationException e) {
+            // Registered by a concurrent request since the check above
+            return -1;
         } catch (Exception e) {
             System.err.println("Error saving doctor: " + e.getMessage());
             return 0;
@@ -105,7 +119,15 @@ public class DoctorService {
             return -1;
         }
         try {
-            doctorRepository.save(doctor);
+            long version = transactionTemplate.execute(status -> {
+                doctorRepository.save(doctor);
+                return directoryVersion.bump();
+            });
+            doctorRepository.evictFromCache(doctor.getId());
+            searchIndex.put(doctor);
+            directoryVersion.publish(version);
+            tokenService.invalidate(result.get().getEmail());
+            slotIndex.invalidateDoctor(doctor.getId());
             return 1;
         } catch (Exception e) {
             System.err.println("Error saving doctor: " + e.getMessage());
@@ -118,10 +140,26 @@ public class DoctorService {
     public List<Doctor> getDoctors() {
         List<Doctor> doctors = doctorRepository.findAll();
         // Optionally touch the collection to force loading:
-        doctors.forEach(doc -> doc.getAvailableTimes().size());
+        doctors.forEach(doc -> doc.getAvailabilitySlots().size());
         return doctors;
     }
 
+    // One keyset page of the directory; nextCursor is null on the last page
+    public Map<String, Object> getDoctorPage(String cursor, int size) {
+        Map<String, Object> map = new HashMap<>();
+        List<Long> ids = doctorRepository.findIdPage(PageCursor.decode(cursor).getId(), PageRequest.of(0, size + 1));
+        boolean more = ids.size() > size;
+        if (more) {
+            ids = ids.subList(0, size);
+        }
+        List<Doctor> doctors = ids.isEmpty() ? List.of() : doctorRepository.findAllWithAvailableTimesByIdIn(ids);
+        map.put("doctors", doctors);
+        map.put("nextCursor", more ? PageCursor.encode(ids.get(ids.size() - 1)) : null);
+        return map;
+    }
+
+    // Soft delete: the doctor disappears from every query right away and a purge job is queued in the same
+    // transaction; DoctorPurgeRunner then deletes the appointments and the row in the background
     public int deleteDoctor(long id) {
         Optional<Doctor> doctor = doctorRepository.findById(id);
 
@@ -129,8 +167,17 @@ public class DoctorService {
             return -1;
         }
         try {
-            appointmentRepository.deleteAllByDoctorId(doctor.get().getId());
-            doctorRepository.delete(doctor.get());
+            long version = transactionTemplate.execute(status -> {
+                // Also frees the email, so the doctor can be registered again while the purge is still running
+                doctorRepository.softDelete(id, LocalDateTime.now());
+                purgeJobRepository.save(new DoctorPurgeJob(id));
+                return directoryVersion.bump();
+            });
+            doctorRepository.evictFromCache(id);
+            searchIndex.remove(id);
+            directoryVersion.publish(version);
+            tokenService.invalidate(doctor.get().getEmail());
+            slotIndex.invalidateDoctor(id);
             return 1;
         } catch (Exception e) {
             System.err.println("Error saving doctor: " + e.getMessage());
@@ -138,6 +185,64 @@ public class DoctorService {
         }
     }
 
+    // Deletes the next chunk of appointments of the oldest due purge job, or removes the doctor once none are
+    // left. A chunk that fails is rolled back and counted on its job, which then backs off so the jobs behind it
+    // keep moving, and is marked failed after doctor.purge.max-attempts. Returns false when no job is due
+    public boolean purgeNextChunk(int chunkSize) {
+        Long[] claimed = new Long[1];
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                List<DoctorPurgeJob> jobs = purgeJobRepository.lockPending(LocalDateTime.now(), PageRequest.of(0, 1));
+                if (jobs.isEmpty()) {
+                    return false;
+                }
+                DoctorPurgeJob job = jobs.get(0);
+                claimed[0] = job.getId();
+                List<Long> ids = appointmentRepository.findIdChunkByDoctorId(job.getDoctorId(),
+                        PageRequest.of(0, chunkSize));
+                if (!ids.isEmpty()) {
+                    job.appointmentsDeleted(appointmentRepository.deleteAllByIdIn(ids));
+                    return true;
+                }
+                doctorRepository.purgeAvailabilitySlots(job.getDoctorId());
+                doctorRepository.purgeDeleted(job.getDoctorId());
+                job.finish();
+                return true;
+            }));
+        } catch (RuntimeException e) {
+            if (claimed[0] == null) {
+                throw e;
+            }
+            System.out.println("Error: " + e);
+            transactionTemplate.executeWithoutResult(status -> purgeJobRepository.findById(claimed[0])
+                    .ifPresent(job -> job.retryLater(e.toString(), purgeMaxAttempts, purgeMaxBackoffSeconds)));
+            return true;
+        }
+    }
+
+    public ResponseEntity<Map<String, Object>> getDeletionStatus(long doctorId) {
+        Map<String, Object> map = new HashMap<>();
+        Optional<DoctorPurgeJob> job = purgeJobRepository.findByDoctorId(doctorId);
+        if (!job.isPresent()) {
+            map.put("message", "No deletion requested for doctor with id: " + doctorId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(map);
+        }
+        map.put("doctorId", doctorId);
+        map.put("status", job.get().getStatus());
+        map.put("appointmentsDeleted", job.get().getAppointmentsDeleted());
+        map.put("requestedAt", job.get().getRequestedAt());
+        map.put("finishedAt", job.get().getFinishedAt());
+        // Failed chunks so far; a pending job with attempts is retried at nextAttemptAt, a failed one is given up
+        map.put("attempts", job.get().getAttempts());
+        if (job.get().getAttempts() > 0) {
+            map.put("lastError", job.get().getLastError());
+            if (DoctorPurgeJob.PENDING.equals(job.get().getStatus())) {
+                map.put("nextAttemptAt", job.get().getNextAttemptAt());
+            }
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(map);
+    }
+
     public ResponseEntity<Map<String, String>> validateDoctor(Login login) {
         Map<String, String> map = new HashMap<>();
         try {
@@ -145,7 +250,7 @@ public class DoctorService {
             Doctor doctor = doctorRepository.findByEmail(login.getEmail());
             if (doctor != null) {
                 if (doctor.getPassword().equals(login.getPassword())) {
-                    map.put("token", tokenService.generateToken(doctor.getEmail()));
+                    map.put("token", tokenService.generateToken(doctor.getEmail(), "doctor", doctor.getId()));
                     return ResponseEntity.status(HttpStatus.OK).body(map);
                 } else {
                     map.put("error", "Password does not match");
@@ -162,101 +267,23 @@ public class DoctorService {
         }
     }
 
-    @Transactional
-    public Map<String, Object> findDoctorByName(String name) {
-        Map<String, Object> map = new HashMap<>();
-        List<Doctor> doctorList = doctorRepository.findByNameLike(name);
-        doctorList.forEach(doc -> doc.getAvailableTimes().size());
-        map.put("doctors", doctorList);
-        return map;
-    }
-
-    @Transactional
-    public Map<String, Object> filterDoctorsByNameSpecilityandTime(String name, String specialty, String amOrPm) {
-        Map<String, Object> map = new HashMap<>();
-
-        List<Doctor> doctors = doctorRepository.findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase(name, specialty);
-
-        List<Doctor> filteredDoctors = filterDoctorByTime(doctors,amOrPm);
-
-        map.put("doctors", filteredDoctors);
-        return map;
-    }
-
-    @Transactional
-    public Map<String, Object> filterDoctorByNameAndTime(String name, String amOrPm) {
-        Map<String, Object> map = new HashMap<>();
-
-        // Step 1: Fetch by name (partial match)
-        List<Doctor> doctors = doctorRepository.findByNameLike(name);
-
-        // Step 2: Filter by AM/PM
-        List<Doctor> filteredDoctors = filterDoctorByTime(doctors,amOrPm);
-
-        map.put("doctors", filteredDoctors);
-        return map;
+    // Name, specialty and AM/PM are answered from the in-memory search index, without a query
+    public List<Doctor> filterDoctors(String name, String specialty, String amOrPm) {
+        return searchIndex.filter(name, specialty, amOrPm);
     }
 
-    @Transactional
-    public Map<String, Object> filterDoctorByNameAndSpecility(String name, String specilty) {
+    // Name suggestions for the search box: id, name and specialty of up to limit doctors
+    public Map<String, Object> autocompleteDoctors(String prefix, int limit) {
         Map<String, Object> map = new HashMap<>();
-        List<Doctor> doctorList = doctorRepository.findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase(name, specilty);
-        doctorList.forEach(doc -> doc.getAvailableTimes().size());
-        map.put("doctors", doctorList);
-        return map;
-    }
-
-    @Transactional
-    public Map<String, Object> filterDoctorByTimeAndSpecility(String specilty, String amOrPm) {
-        Map<String, Object> map = new HashMap<>();
-        List<Doctor> doctors = doctorRepository.findBySpecialtyIgnoreCase(specilty);
-        List<Doctor> filteredDoctors = filterDoctorByTime(doctors,amOrPm);
-        map.put("doctors", filteredDoctors);
-        return map;
-
-    }
-
-    @Transactional
-    public Map<String, Object> filterDoctorBySpecility(String specilty) {
-        Map<String, Object> map = new HashMap<>();
-        List<Doctor> doctorList = doctorRepository.findBySpecialtyIgnoreCase(specilty);
-        doctorList.forEach(doc -> doc.getAvailableTimes().size());
-        map.put("doctors", doctorList);
-        return map;
-    }
-
-    @Transactional
-    public Map<String, Object> filterDoctorsByTime(String amOrPm) {
-        Map<String, Object> map = new HashMap<>();
-        List<Doctor> doctors = doctorRepository.findAll();
-        List<Doctor> filteredDoctors = filterDoctorByTime(doctors,amOrPm);
-        map.put("doctors", filteredDoctors);
+        List<Map<String, Object>> suggestions = new ArrayList<>();
+        for (Doctor doctor : searchIndex.autocomplete(prefix, limit)) {
+            Map<String, Object> suggestion = new LinkedHashMap<>();
+            suggestion.put("id", doctor.getId());
+            suggestion.put("name", doctor.getName());
+            suggestion.put("specialty", doctor.getSpecialty());
+            suggestions.add(suggestion);
+        }
+        map.put("suggestions", suggestions);
         return map;
     }
-
-
-    public  List<Doctor> filterDoctorByTime(List<Doctor> doctors,String amOrPm)
-    {
-        return doctors.stream()
-                .filter(doctor -> {
-                    if (amOrPm == null || amOrPm.isBlank())
-                        return true;
-
-                    boolean isAM = amOrPm.equalsIgnoreCase("am");
-                    return doctor.getAvailableTimes().stream().anyMatch(slot -> {
-                        try {
-                            String startHourStr = slot.split("-")[0].split(":")[0]; // e.g. "09"
-                            int hour = Integer.parseInt(startHourStr);
-                            return isAM ? hour < 12 : hour >= 12;
-                        } catch (Exception e) {
-                            return false; // Skip invalid time slots
-                        }
-                    });
-                })
-                .collect(Collectors.toList());
-    }
-
-
-
-
-}
\ No newline at end of file
+}
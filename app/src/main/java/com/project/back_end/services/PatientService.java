@@ -3,32 +3,31 @@ package com.project.back_end.services;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import com.project.back_end.DTO.AppointmentDTO;
-import com.project.back_end.models.Appointment;
+import com.project.back_end.DTO.PageCursor;
 import com.project.back_end.models.Patient;
 import com.project.back_end.repo.AppointmentRepository;
 import com.project.back_end.repo.PatientRepository;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
 
 @Service
+@Timed("app.service")
 public class PatientService {
 
     private final PatientRepository patientRepository;
     private final AppointmentRepository appointmentRepository;
-    private final TokenService tokenService;
 
-    public PatientService(PatientRepository patientRepository, AppointmentRepository appointmentRepository,
-                          TokenService tokenService) {
+    public PatientService(PatientRepository patientRepository, AppointmentRepository appointmentRepository) {
         this.patientRepository = patientRepository;
         this.appointmentRepository = appointmentRepository;
-        this.tokenService = tokenService;
     }
 
     public int createPatient(Patient patient) {
@@ -43,26 +42,12 @@ public class PatientService {
     }
 
     @Transactional
-    public ResponseEntity<Map<String, Object>> getPatientAppointment(Long id, String token) {
+    public ResponseEntity<Map<String, Object>> getPatientAppointment(Long id) {
         Map<String, Object> map = new HashMap<>();
 
         try {
-            List<Appointment> appointments = appointmentRepository.findByPatientId(id);
-
-            // Convert appointments to DTOs
-            List<AppointmentDTO> appointmentDTOs = appointments.stream()
-                    .map(app -> new AppointmentDTO(
-                            app.getId(),
-                            app.getDoctor().getId(), // Only doctor ID
-                            app.getDoctor().getName(),
-                            app.getPatient().getId(),
-                            app.getPatient().getName(),
-                            app.getPatient().getEmail(),
-                            app.getPatient().getPhone(),
-                            app.getPatient().getAddress(),
-                            app.getAppointmentTime(),
-                            app.getStatus()))
-                    .collect(Collectors.toList());
+            // Projected straight into DTOs by the query
+            List<AppointmentDTO> appointmentDTOs = appointmentRepository.findDtoByPatientId(id);
 
             map.put("appointments", appointmentDTOs);
             return ResponseEntity.status(HttpStatus.OK).body(map);
@@ -75,31 +60,18 @@ public class PatientService {
 
     public ResponseEntity<Map<String, Object>> filterByCondition(String condition, Long id) {
         Map<String, Object> map = new HashMap<>();
-        List<Appointment> appointments;
+        List<AppointmentDTO> appointmentDTOs;
         if (condition.equals("past")) {
-            appointments = appointmentRepository.findByPatient_IdAndStatusOrderByAppointmentTimeAsc(id, 1);
+            appointmentDTOs = appointmentRepository.findDtoByPatientIdAndStatusOrderByAppointmentTimeAsc(id, 1);
 
         } else if (condition.equals("future")) {
-            appointments = appointmentRepository.findByPatient_IdAndStatusOrderByAppointmentTimeAsc(id, 0);
+            appointmentDTOs = appointmentRepository.findDtoByPatientIdAndStatusOrderByAppointmentTimeAsc(id, 0);
 
         } else {
             map.put("error", "Invalid filter");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(map);
 
         }
-        List<AppointmentDTO> appointmentDTOs = appointments.stream()
-                .map(app -> new AppointmentDTO(
-                        app.getId(),
-                        app.getDoctor().getId(), // Only doctor ID
-                        app.getDoctor().getName(),
-                        app.getPatient().getId(),
-                        app.getPatient().getName(),
-                        app.getPatient().getEmail(),
-                        app.getPatient().getPhone(),
-                        app.getPatient().getAddress(),
-                        app.getAppointmentTime(),
-                        app.getStatus()))
-                .collect(Collectors.toList());
 
         map.put("appointments", appointmentDTOs);
         return ResponseEntity.status(HttpStatus.OK).body(map);
@@ -108,32 +80,9 @@ public class PatientService {
     public ResponseEntity<Map<String, Object>> filterByDoctor(String name, Long patientId) {
         Map<String, Object> map = new HashMap<>();
 
-        System.out.println("Startingur query");
-        List<Appointment> appointments = appointmentRepository.filterByDoctorNameAndPatientId(name,
+        List<AppointmentDTO> appointmentDTOs = appointmentRepository.filterDtoByDoctorNameAndPatientId(name,
                 patientId);
 
-        System.out.println(name);
-        System.out.println(patientId);
-        System.out.println("HI");
-        System.out.println(appointments.size());
-        for (Appointment appointment : appointments) {
-            System.out.println("" + appointment.getDoctor().getName());
-        }
-
-        List<AppointmentDTO> appointmentDTOs = appointments.stream()
-                .map(app -> new AppointmentDTO(
-                        app.getId(),
-                        app.getDoctor().getId(), // Only doctor ID
-                        app.getDoctor().getName(),
-                        app.getPatient().getId(),
-                        app.getPatient().getName(),
-                        app.getPatient().getEmail(),
-                        app.getPatient().getPhone(),
-                        app.getPatient().getAddress(),
-                        app.getAppointmentTime(),
-                        app.getStatus()))
-                .collect(Collectors.toList());
-
         map.put("appointments", appointmentDTOs);
         return ResponseEntity.status(HttpStatus.OK).body(map);
     }
@@ -142,41 +91,57 @@ public class PatientService {
                                                                           long patientId) {
 
         Map<String, Object> map = new HashMap<>();
-        List<Appointment> appointments;
+        List<AppointmentDTO> appointmentDTOs;
         if (condition.equals("past")) {
-            appointments = appointmentRepository.filterByDoctorNameAndPatientIdAndStatus(name, patientId, 1);
+            appointmentDTOs = appointmentRepository.filterDtoByDoctorNameAndPatientIdAndStatus(name, patientId, 1);
 
         } else if (condition.equals("future")) {
-            appointments = appointmentRepository.filterByDoctorNameAndPatientIdAndStatus(name, patientId, 0);
+            appointmentDTOs = appointmentRepository.filterDtoByDoctorNameAndPatientIdAndStatus(name, patientId, 0);
 
         } else {
             map.put("error", "Invalid filter");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(map);
 
         }
-        List<AppointmentDTO> appointmentDTOs = appointments.stream()
-                .map(app -> new AppointmentDTO(
-                        app.getId(),
-                        app.getDoctor().getId(), // Only doctor ID
-                        app.getDoctor().getName(),
-                        app.getPatient().getId(),
-                        app.getPatient().getName(),
-                        app.getPatient().getEmail(),
-                        app.getPatient().getPhone(),
-                        app.getPatient().getAddress(),
-                        app.getAppointmentTime(),
-                        app.getStatus()))
-                .collect(Collectors.toList());
 
         map.put("appointments", appointmentDTOs);
         return ResponseEntity.status(HttpStatus.OK).body(map);
     }
 
-    public ResponseEntity<Map<String,Object>> getPatientDetails(String token)
+    // Keyset page over (appointmentTime, id); status and doctorName narrow the listing when not null
+    public ResponseEntity<Map<String, Object>> getPatientAppointmentPage(Long patientId, Integer status,
+                                                                         String doctorName, String cursor,
+                                                                         int size) {
+        Map<String, Object> map = new HashMap<>();
+        PageCursor after;
+        try {
+            after = PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            map.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(map);
+        }
+
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<AppointmentDTO> appointmentDTOs = status == null
+                ? appointmentRepository.findDtoPageByPatientId(patientId, doctorName, after.getTime(), after.getId(),
+                        page)
+                : appointmentRepository.findDtoPageByPatientIdAndStatus(patientId, status, doctorName,
+                        after.getTime(), after.getId(), page);
+        boolean more = appointmentDTOs.size() > size;
+        if (more) {
+            appointmentDTOs = appointmentDTOs.subList(0, size);
+        }
+        AppointmentDTO last = more ? appointmentDTOs.get(size - 1) : null;
+
+        map.put("appointments", appointmentDTOs);
+        map.put("nextCursor", last != null ? PageCursor.encode(last.getAppointmentTime(), last.getId()) : null);
+        return ResponseEntity.status(HttpStatus.OK).body(map);
+    }
+
+    public ResponseEntity<Map<String,Object>> getPatientDetails(Long patientId)
     {
         Map<String, Object> map = new HashMap<>();
-        String email=tokenService.extractEmail(token);
-        Patient patient=patientRepository.findByEmail(email);
+        Patient patient=patientRepository.findById(patientId).orElse(null);
         map.put("patient",patient);
         return ResponseEntity.status(HttpStatus.OK).body(map);
     }
@@ -0,0 +1,28 @@
+package com.project.back_end.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Drains the prescription outbox into MongoDB. Safe to run on several instances: each batch claims its rows
+// with SKIP LOCKED and a lease, and a replayed row overwrites its own document instead of adding a second one
+@Component
+public class PrescriptionOutboxRelay {
+
+    @Value("${prescription.outbox.batch-size:100}")
+    private int batchSize;
+
+    private final PrescriptionService prescriptionService;
+
+    public PrescriptionOutboxRelay(PrescriptionService prescriptionService) {
+        this.prescriptionService = prescriptionService;
+    }
+
+    @Scheduled(fixedDelayString = "${prescription.outbox.poll-interval-ms:1000}")
+    public void relay() {
+        // Keep going while batches come back full; a short batch means the due backlog is drained
+        while (prescriptionService.relayOutboxBatch(batchSize) == batchSize) {
+            // next batch
+        }
+    }
+}
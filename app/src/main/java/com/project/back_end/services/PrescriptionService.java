@@ -1,31 +1,91 @@
 package com.project.back_end.services;
 
 import com.project.back_end.models.Prescription;
+import com.project.back_end.models.PrescriptionOutbox;
+import com.project.back_end.repo.PrescriptionOutboxRepository;
 import com.project.back_end.repo.PrescriptionRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Service
+@Timed("app.service")
 public class PrescriptionService {
 
+    private static final int MAX_BATCH_APPOINTMENTS = 500;
+
+    @Value("${prescription.outbox.claim-seconds:60}")
+    private long claimSeconds;
+
+    @Value("${prescription.outbox.max-backoff-seconds:300}")
+    private long maxBackoffSeconds;
+
+    @Value("${prescription.outbox.max-attempts:10}")
+    private int maxAttempts;
+
     private final PrescriptionRepository prescriptionRepository;
+    private final PrescriptionOutboxRepository outboxRepository;
+    private final AppointmentService appointmentService;
+    private final MongoTemplate mongoTemplate;
+    private final TransactionTemplate transactionTemplate;
 
-    public PrescriptionService(PrescriptionRepository prescriptionRepository) {
+    public PrescriptionService(PrescriptionRepository prescriptionRepository,
+                               PrescriptionOutboxRepository outboxRepository,
+                               AppointmentService appointmentService,
+                               MongoTemplate mongoTemplate,
+                               TransactionTemplate transactionTemplate) {
         this.prescriptionRepository = prescriptionRepository;
+        this.outboxRepository = outboxRepository;
+        this.appointmentService = appointmentService;
+        this.mongoTemplate = mongoTemplate;
+        this.transactionTemplate = transactionTemplate;
     }
 
+    // Marks the appointment completed and queues the prescription in one MySQL transaction;
+    // PrescriptionOutboxRelay copies it to MongoDB in the background
     public ResponseEntity<Map<String, String>> savePrescription(Prescription prescription) {
         Map<String, String> response = new HashMap<>();
+        if (prescription.getAppointmentId() == null) {
+            response.put("message", "Appointment ID is required");
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
         try {
-            prescriptionRepository.save(prescription);
+            boolean saved = transactionTemplate.execute(status -> {
+                if (!appointmentService.changeStatus(prescription.getAppointmentId())) {
+                    return false;
+                }
+                outboxRepository.save(new PrescriptionOutbox(prescription));
+                return true;
+            });
+            if (!saved) {
+                response.put("message", "No appointment with id: " + prescription.getAppointmentId());
+                return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+            }
             response.put("message", "Prescription saved");
-            return new ResponseEntity<>(response, HttpStatus.CREATED);
+            return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
         } catch (Exception e) {
+            System.out.println("Error: " + e);
             response.put("message", "Failed to save prescription");
             return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -34,7 +94,8 @@ public class PrescriptionService {
     public ResponseEntity<Map<String, Object>> getPrescription(Long appointmentId) {
         Map<String, Object> response = new HashMap<>();
         try {
-            List<Prescription> prescriptions = prescriptionRepository.findByAppointmentId(appointmentId);
+            List<Prescription> prescriptions = withPending(prescriptionRepository.findByAppointmentId(appointmentId),
+                    outboxRepository.findByAppointmentIdOrderByIdAsc(appointmentId));
             if (prescriptions.isEmpty()) {
                 response.put("message", "No prescription found for this appointment");
                 return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
@@ -46,4 +107,120 @@ public class PrescriptionService {
             return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    // Prescriptions of many appointments with one MongoDB and one outbox query, keyed by appointment id;
+    // appointments without a prescription map to an empty list
+    public ResponseEntity<Map<String, Object>> getPrescriptions(Collection<Long> appointmentIds) {
+        Map<String, Object> response = new HashMap<>();
+        if (appointmentIds.size() > MAX_BATCH_APPOINTMENTS) {
+            response.put("message", "At most " + MAX_BATCH_APPOINTMENTS + " appointments per request");
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
+        Map<Long, List<Prescription>> byAppointment = new LinkedHashMap<>();
+        appointmentIds.forEach(id -> byAppointment.put(id, new ArrayList<>()));
+        if (appointmentIds.isEmpty()) {
+            response.put("prescriptions", byAppointment);
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        }
+        try {
+            List<Prescription> prescriptions = withPending(prescriptionRepository.findByAppointmentIdIn(appointmentIds),
+                    outboxRepository.findByAppointmentIdInOrderByIdAsc(appointmentIds));
+            for (Prescription prescription : prescriptions) {
+                byAppointment.get(prescription.getAppointmentId()).add(prescription);
+            }
+            response.put("prescriptions", byAppointment);
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (Exception e) {
+            System.out.println("Error: " + e);
+            response.put("message", "Failed to fetch prescriptions");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Prescriptions of the doctor's appointments on the given day
+    public ResponseEntity<Map<String, Object>> getPrescriptions(LocalDate date, Long doctorId) {
+        return getPrescriptions(appointmentService.getAppointmentIds(date, doctorId));
+    }
+
+    // Adds the prescriptions that are saved but not relayed yet; a row relayed in between shows up once,
+    // under its deterministic id
+    private static List<Prescription> withPending(List<Prescription> stored, List<PrescriptionOutbox> pending) {
+        List<Prescription> prescriptions = new ArrayList<>(stored);
+        Set<String> ids = new HashSet<>();
+        stored.forEach(prescription -> ids.add(prescription.getId()));
+        for (PrescriptionOutbox row : pending) {
+            Prescription prescription = row.toPrescription();
+            if (ids.add(prescription.getId())) {
+                prescriptions.add(prescription);
+            }
+        }
+        return prescriptions;
+    }
+
+    // Writes up to batchSize due outbox rows to MongoDB in one unordered bulk upsert and deletes the ones that made
+    // it. Rows the bulk write rejected, or all of them when it failed as a whole, stay with a backoff and are
+    // dead-lettered after prescription.outbox.max-attempts. Returns the number of rows handled.
+    // No MySQL transaction or row lock is held during the MongoDB write: the rows are claimed for
+    // prescription.outbox.claim-seconds in one short transaction and settled in another
+    public int relayOutboxBatch(int batchSize) {
+        List<PrescriptionOutbox> rows = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<PrescriptionOutbox> due = outboxRepository.lockDue(now, PageRequest.of(0, batchSize));
+            due.forEach(row -> row.claimUntil(now.plusSeconds(claimSeconds)));
+            return due;
+        });
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        // Operation index in the bulk write -> why it failed
+        Map<Integer, String> failed = new HashMap<>();
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Prescription.class);
+            for (PrescriptionOutbox row : rows) {
+                Prescription prescription = row.toPrescription();
+                bulk.replaceOne(Query.query(Criteria.where("_id").is(prescription.getId())), prescription,
+                        FindAndReplaceOptions.options().upsert());
+            }
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            // Unordered: every operation was tried, and only the ones listed here failed
+            System.out.println("Error: " + e);
+            e.getErrors().forEach(error -> failed.put(error.getIndex(), error.getMessage()));
+        } catch (Exception e) {
+            System.out.println("Error: " + e);
+            for (int i = 0; i < rows.size(); i++) {
+                failed.put(i, e.getMessage());
+            }
+        }
+        List<PrescriptionOutbox> relayed = new ArrayList<>(rows.size());
+        List<PrescriptionOutbox> retried = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (failed.containsKey(i)) {
+                rows.get(i).retryLater(failed.get(i), maxAttempts, maxBackoffSeconds);
+                retried.add(rows.get(i));
+            } else {
+                relayed.add(rows.get(i));
+            }
+        }
+        // If this fails the claim simply runs out, and the rows are replayed onto their own documents
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!retried.isEmpty()) {
+                outboxRepository.saveAll(retried);
+            }
+            if (!relayed.isEmpty()) {
+                outboxRepository.deleteAllInBatch(relayed);
+            }
+        });
+        return rows.size();
+    }
+
+    // Rows still waiting for MongoDB, for the outbox backlog gauge
+    public long countPendingOutbox() {
+        return outboxRepository.countByStatus(PrescriptionOutbox.PENDING);
+    }
+
+    // Rows the relay gave up on, for the dead-letter gauge
+    public long countFailedOutbox() {
+        return outboxRepository.countByStatus(PrescriptionOutbox.FAILED);
+    }
 }
@@ -1,19 +1,15 @@
 package com.project.back_end.services;
 
-import java.time.LocalDate;
-import java.time.LocalTime;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import com.project.back_end.DTO.AuthenticatedUser;
 import com.project.back_end.DTO.Login;
 import com.project.back_end.models.Admin;
 import com.project.back_end.models.Appointment;
-import com.project.back_end.models.Doctor;
 import com.project.back_end.models.Patient;
 import com.project.back_end.repo.AdminRepository;
 import com.project.back_end.repo.DoctorRepository;
@@ -28,15 +24,18 @@ public class Service {
     private final DoctorService doctorService;
     private final PatientRepository patientRepository;
     private final PatientService patientService;
+    private final SlotOccupancyIndex slotIndex;
 
     public Service(TokenService tokenService, AdminRepository adminRepository, DoctorService doctorService,
-            DoctorRepository doctorRepository, PatientRepository patientRepository,PatientService patientService) {
+            DoctorRepository doctorRepository, PatientRepository patientRepository,PatientService patientService,
+            SlotOccupancyIndex slotIndex) {
         this.tokenService = tokenService;
         this.adminRepository = adminRepository;
         this.doctorService = doctorService;
         this.doctorRepository = doctorRepository;
         this.patientRepository = patientRepository;
         this.patientService=patientService;
+        this.slotIndex = slotIndex;
     }
 
     public ResponseEntity<Map<String, String>> validateToken(String token, String user) {
@@ -47,13 +46,22 @@ public class Service {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
     }
 
+    // Same contract as validateToken, for the user AuthenticationInterceptor already resolved (null if none)
+    public ResponseEntity<Map<String, String>> validateUser(AuthenticatedUser user, String role) {
+        Map<String, String> response = new HashMap<>();
+        if (user == null || !user.hasRole(role)) {
+            response.put("error", "Invalid or expired token");
+        }
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+    }
+
     public ResponseEntity<Map<String, String>> validateAdmin(Admin receivedAdmin) {
         Map<String, String> map = new HashMap<>();
         try {
             Admin admin = adminRepository.findByUsername(receivedAdmin.getUsername());
             if (admin != null) {
                 if (admin.getPassword().equals(receivedAdmin.getPassword())) {
-                    map.put("token", tokenService.generateToken(admin.getUsername()));
+                    map.put("token", tokenService.generateToken(admin.getUsername(), "admin", admin.getId()));
                     return ResponseEntity.status(HttpStatus.OK).body(map);
                 } else {
                     map.put("error", "Password does not match");
@@ -72,54 +80,19 @@ public class Service {
 
     public Map<String, Object> filterDoctor(String name, String specility, String time) {
         Map<String, Object> map = new HashMap<>();
-        if (!name.equals("null") && !time.equals("null") && !specility.equals("null")) {
-            map = doctorService.filterDoctorsByNameSpecilityandTime(name, specility, time);
-        }
-
-        else if (!name.equals("null") && !time.equals("null")) {
-            map = doctorService.filterDoctorByNameAndTime(name, time);
-        } else if (!name.equals("null") && !specility.equals("null")) {
-            map = doctorService.filterDoctorByNameAndSpecility(name, specility);
-        } else if (!specility.equals("null") && !time.equals("null")) {
-            map = doctorService.filterDoctorByTimeAndSpecility(specility, time);
-        } else if (!name.equals("null")) {
-            map = doctorService.findDoctorByName(name);
-        } else if (!specility.equals("null")) {
-            map = doctorService.filterDoctorBySpecility(specility);
-        } else if (!time.equals("null")) {
-            map = doctorService.filterDoctorsByTime(time);
-        } else {
-            map.put("doctors", doctorService.getDoctors());
-        }
+        // "null" in the path means the filter is not set; whatever is set goes into one query
+        map.put("doctors", doctorService.filterDoctors(unset(name), unset(specility), unset(time)));
         return map;
 
     }
 
-    public int validateAppointment(Appointment appointment) {
-        Doctor doctor = appointment.getDoctor();
-        Optional<Doctor> result = doctorRepository.findById(doctor.getId());
-        if (result.isEmpty()) {
-            return -1;
-        }
-        LocalDate appointmentDate = appointment.getAppointmentDate();
-        LocalTime appointmentTime = appointment.getAppointmentTimeOnly();
-        List<String> availableTime = doctorService.getDoctorAvailability(doctor.getId(), appointmentDate);
-
-        for (String timeSlot : availableTime) {
-            // Split the available time slot into start and end times (e.g., "9:00-10:00" ->
-            // ["9:00", "10:00"])
-            String[] times = timeSlot.split("-");
-
-            // Parse the start time and end time as LocalTime
-            LocalTime startTime = LocalTime.parse(times[0]);
-
-            if (appointmentTime.equals(startTime)) {
-                return 1; // The appointment time matches the start time of an available slot
-            }
-
-        }
+    private static String unset(String value) {
+        return value == null || value.equals("null") ? null : value;
+    }
 
-        return 0;
+    public int validateAppointment(Appointment appointment) {
+        // 1: matches the start of a free slot, 0: taken or no such slot, -1: doctor not found
+        return slotIndex.checkSlot(appointment.getDoctor().getId(), appointment.getAppointmentTime());
     }
 
     public boolean validatePatient(Patient patient) {
@@ -136,7 +109,7 @@ public class Service {
             Patient result = patientRepository.findByEmail(login.getEmail());
             if (result != null) {
                 if (result.getPassword().equals(login.getPassword())) {
-                    map.put("token", tokenService.generateToken(login.getEmail()));
+                    map.put("token", tokenService.generateToken(result.getEmail(), "patient", result.getId()));
                     return ResponseEntity.status(HttpStatus.OK).body(map);
                 }
 
@@ -157,26 +130,42 @@ public class Service {
         }
     }
 
-    public ResponseEntity<Map<String,Object>> filterPatient(String condition,String name,String token)
-    {
-        String extractedEmail = tokenService.extractEmail(token);
-        Long patientId = patientRepository.findByEmail(extractedEmail).getId();
+    // Paged variant of filterPatient; "null" or missing condition/name means no filter
+    public ResponseEntity<Map<String, Object>> filterPatientPage(String condition, String name, Long patientId,
+                                                                 String cursor, int size) {
+        Integer status = null;
+        if ("past".equals(condition)) {
+            status = 1;
+        } else if ("future".equals(condition)) {
+            status = 0;
+        } else if (unset(condition) != null) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("error", "Invalid filter");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(map);
+        }
+        return patientService.getPatientAppointmentPage(patientId, status, unset(name), cursor, size);
+    }
 
-        if(name.equals("null") && !condition.equals("null"))
+    // "null" or missing condition/name means no filter
+    public ResponseEntity<Map<String,Object>> filterPatient(String condition,String name,Long patientId)
+    {
+        condition = unset(condition);
+        name = unset(name);
+        if(name == null && condition != null)
         {
             return patientService.filterByCondition(condition,patientId);
         }
-        else if(condition.equals("null")&& !name.equals("null"))
+        else if(condition == null && name != null)
         {
             return patientService.filterByDoctor(name,patientId);
         }
-        else if(!condition.equals("null")&& !name.equals("null"))
+        else if(condition != null && name != null)
         {
             return patientService.filterByDoctorAndCondition(condition,name,patientId);
         }
         else
         {
-            return patientService.getPatientAppointment(patientId,token);
+            return patientService.getPatientAppointment(patientId);
         }
         
 
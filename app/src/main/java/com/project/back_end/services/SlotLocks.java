@@ -0,0 +1,68 @@
+package com.project.back_end.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.project.back_end.models.Appointment;
+
+/**
+ * Striped locks keyed by (doctorId, appointment time).
+ * Bookings for the same doctor and slot serialize on one stripe; bookings for other slots almost
+ * always land on other stripes and run in parallel. The unique key on (doctor_id, appointment_time)
+ * stays the backstop across application instances.
+ */
+@Component
+public class SlotLocks {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public SlotLocks(@Value("${booking.lock-stripes:4096}") int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public Lock lockFor(Long doctorId, LocalDateTime time) {
+        return stripes[stripeIndex(doctorId, time)];
+    }
+
+    // Locks every stripe the given appointments map to, in stripe order so concurrent batches cannot deadlock
+    public List<Lock> lockAll(List<Appointment> appointments) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (Appointment appointment : appointments) {
+            indexes.add(stripeIndex(appointment.getDoctor().getId(), appointment.getAppointmentTime()));
+        }
+        List<Lock> locks = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            stripes[index].lock();
+            locks.add(stripes[index]);
+        }
+        return locks;
+    }
+
+    public void unlockAll(List<Lock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    int stripeIndex(Long doctorId, LocalDateTime time) {
+        int h = 31 * Long.hashCode(doctorId) + (time == null ? 0 : time.hashCode());
+        // Spread the bits so neighbouring slots of one doctor do not share a stripe
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return h & mask;
+    }
+}
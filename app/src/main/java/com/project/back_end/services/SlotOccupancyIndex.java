@@ -0,0 +1,335 @@
+package com.project.back_end.services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.project.back_end.models.AvailabilitySlot;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+
+/**
+ * In-memory view of which slots are taken, per doctor per day.
+ * A day is loaded from the database the first time it is asked for and is then kept up to date by
+ * {@link AppointmentService} on every booking, update and cancellation, so availability reads and
+ * booking checks do not go back to the database. Concurrent misses for the same doctor or day share a single
+ * load, so a burst of reads for a newly opened day costs one query per doctor, not one per user.
+ * <p>
+ * Bookings and slot changes made through another instance only reach this one through the database, so a loaded
+ * day or slot list is read again once it is older than {@code availability.index.ttl-ms}. Each doctor keeps at most
+ * {@code availability.index.max-days} days; the ones loaded longest ago make room first.
+ */
+@Component
+public class SlotOccupancyIndex {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    // One bit per minute of the day, set when an appointment starts at that minute
+    static final class DayOccupancy {
+        private final long[] words = new long[(MINUTES_PER_DAY + 63) / 64];
+        private final long loadedAt;
+
+        DayOccupancy(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+
+        synchronized void set(int minute) {
+            words[minute >>> 6] |= 1L << minute;
+        }
+
+        synchronized void clear(int minute) {
+            words[minute >>> 6] &= ~(1L << minute);
+        }
+
+        synchronized boolean get(int minute) {
+            return (words[minute >>> 6] & (1L << minute)) != 0;
+        }
+    }
+
+    // Flattened copy of Doctor.availabilitySlots: label, start minute and weekday (0 = every day) per slot
+    static final class DoctorSlots {
+        private final String[] labels;
+        private final int[] startMinutes;
+        private final int[] days;
+        private final long loadedAt;
+
+        DoctorSlots(List<AvailabilitySlot> slots, long loadedAt) {
+            this.loadedAt = loadedAt;
+            int size = slots == null ? 0 : slots.size();
+            labels = new String[size];
+            startMinutes = new int[size];
+            days = new int[size];
+            for (int i = 0; i < size; i++) {
+                AvailabilitySlot slot = slots.get(i);
+                labels[i] = slot.toLabel();
+                startMinutes[i] = slot.getStartMinute();
+                days[i] = slot.getDayOfWeek() == null ? 0 : slot.getDayOfWeek();
+            }
+        }
+
+        boolean appliesTo(int i, int dayOfWeek) {
+            return days[i] == 0 || days[i] == dayOfWeek;
+        }
+    }
+
+    private static final class DoctorState {
+        private volatile DoctorSlots slots;
+        private final Map<LocalDate, DayOccupancy> days = new ConcurrentHashMap<>();
+        private final Map<LocalDate, CompletableFuture<DayOccupancy>> dayLoads = new ConcurrentHashMap<>();
+        private final Map<List<LocalDate>, CompletableFuture<Map<LocalDate, DayOccupancy>>> rangeLoads =
+                new ConcurrentHashMap<>();
+        // Bumped on every mutation so a day load that raced with a booking is not installed
+        private long mutations;
+    }
+
+    @Value("${availability.index.ttl-ms:5000}")
+    private long ttlMillis;
+
+    @Value("${availability.index.max-days:62}")
+    private int maxDays;
+
+    private final Map<Long, DoctorState> doctors = new ConcurrentHashMap<>();
+    private final Map<Long, CompletableFuture<DoctorSlots>> slotLoads = new ConcurrentHashMap<>();
+
+    private final DoctorRepository doctorRepository;
+    private final AppointmentRepository appointmentRepository;
+
+    public SlotOccupancyIndex(DoctorRepository doctorRepository, AppointmentRepository appointmentRepository) {
+        this.doctorRepository = doctorRepository;
+        this.appointmentRepository = appointmentRepository;
+    }
+
+    // Free slots for the day in the doctor's own order, or null when the doctor does not exist
+    public List<String> getAvailableSlots(Long doctorId, LocalDate date) {
+        DoctorState state = state(doctorId);
+        DoctorSlots slots = slots(doctorId, state);
+        if (slots == null) {
+            return null;
+        }
+        return freeSlots(slots, day(doctorId, date, state), date);
+    }
+
+    // Free slots for every day from from to to (inclusive), or null when the doctor does not exist.
+    // Days the index does not hold yet are read together with one range query
+    public Map<LocalDate, List<String>> getAvailableCalendar(Long doctorId, LocalDate from, LocalDate to) {
+        DoctorState state = state(doctorId);
+        DoctorSlots slots = slots(doctorId, state);
+        if (slots == null) {
+            return null;
+        }
+        LocalDate firstMissing = null;
+        LocalDate lastMissing = null;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            if (!fresh(state.days.get(date))) {
+                firstMissing = firstMissing == null ? date : firstMissing;
+                lastMissing = date;
+            }
+        }
+        Map<LocalDate, DayOccupancy> loaded = Map.of();
+        if (firstMissing != null) {
+            LocalDate first = firstMissing;
+            LocalDate last = lastMissing;
+            loaded = singleFlight(state.rangeLoads, List.of(first, last), () -> loadDays(doctorId, first, last, state));
+        }
+        Map<LocalDate, List<String>> calendar = new LinkedHashMap<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            DayOccupancy day = loaded.get(date);
+            if (day == null) {
+                day = day(doctorId, date, state);
+            }
+            calendar.put(date, freeSlots(slots, day, date));
+        }
+        return calendar;
+    }
+
+    // 1: the time starts a free slot, 0: taken or not a slot, -1: doctor not found
+    public int checkSlot(Long doctorId, LocalDateTime time) {
+        DoctorState state = state(doctorId);
+        DoctorSlots slots = slots(doctorId, state);
+        if (slots == null) {
+            return -1;
+        }
+        int minute = minuteOfDay(time);
+        int dayOfWeek = time.getDayOfWeek().getValue();
+        for (int i = 0; i < slots.startMinutes.length; i++) {
+            if (slots.startMinutes[i] == minute && slots.appliesTo(i, dayOfWeek)) {
+                return day(doctorId, time.toLocalDate(), state).get(minute) ? 0 : 1;
+            }
+        }
+        return 0;
+    }
+
+    public void markBooked(Long doctorId, LocalDateTime time) {
+        mutate(doctorId, time, true);
+    }
+
+    public void release(Long doctorId, LocalDateTime time) {
+        mutate(doctorId, time, false);
+    }
+
+    // Forget everything about a doctor, e.g. after their available times changed or they were deleted
+    public void invalidateDoctor(Long doctorId) {
+        doctors.remove(doctorId);
+    }
+
+    private void mutate(Long doctorId, LocalDateTime time, boolean booked) {
+        if (doctorId == null || time == null) {
+            return;
+        }
+        DoctorState state = doctors.get(doctorId);
+        if (state == null) {
+            // Nothing loaded for this doctor, so nothing to keep up to date
+            return;
+        }
+        synchronized (state) {
+            state.mutations++;
+            DayOccupancy day = state.days.get(time.toLocalDate());
+            if (day != null) {
+                if (booked) {
+                    day.set(minuteOfDay(time));
+                } else {
+                    day.clear(minuteOfDay(time));
+                }
+            }
+        }
+    }
+
+    private DoctorState state(Long doctorId) {
+        return doctors.computeIfAbsent(doctorId, id -> new DoctorState());
+    }
+
+    private DoctorSlots slots(Long doctorId, DoctorState state) {
+        DoctorSlots slots = state.slots;
+        if (slots != null && fresh(slots.loadedAt)) {
+            return slots;
+        }
+        return singleFlight(slotLoads, doctorId, () -> {
+            DoctorSlots current = state.slots;
+            if (current != null && fresh(current.loadedAt)) {
+                return current;
+            }
+            Optional<Doctor> doctor = doctorRepository.findWithAvailableTimesById(doctorId);
+            if (doctor.isEmpty()) {
+                // Do not keep an entry around for every id somebody asked about
+                doctors.remove(doctorId, state);
+                return null;
+            }
+            DoctorSlots loaded = new DoctorSlots(doctor.get().getAvailabilitySlots(), System.currentTimeMillis());
+            state.slots = loaded;
+            return loaded;
+        });
+    }
+
+    private DayOccupancy day(Long doctorId, LocalDate date, DoctorState state) {
+        DayOccupancy day = state.days.get(date);
+        if (fresh(day)) {
+            return day;
+        }
+        return singleFlight(state.dayLoads, date, () -> loadDay(doctorId, date, state));
+    }
+
+    private DayOccupancy loadDay(Long doctorId, LocalDate date, DoctorState state) {
+        DayOccupancy day = state.days.get(date);
+        if (fresh(day)) {
+            // Installed by a load that finished just before this one started
+            return day;
+        }
+        return loadDays(doctorId, date, date, state).get(date);
+    }
+
+    // Reads the days from..to with one range query. Days the index already holds fresh keep their (up to date) entry
+    private Map<LocalDate, DayOccupancy> loadDays(Long doctorId, LocalDate from, LocalDate to, DoctorState state) {
+        long seen;
+        synchronized (state) {
+            seen = state.mutations;
+        }
+        long now = System.currentTimeMillis();
+        Map<LocalDate, DayOccupancy> loaded = new LinkedHashMap<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            loaded.put(date, new DayOccupancy(now));
+        }
+        for (LocalDateTime time : appointmentRepository.findAppointmentTimesByDoctorIdAndAppointmentTimeBetween(
+                doctorId, from.atStartOfDay(), to.atTime(LocalTime.MAX))) {
+            loaded.get(time.toLocalDate()).set(minuteOfDay(time));
+        }
+        synchronized (state) {
+            if (state.mutations != seen) {
+                // A booking landed while we were reading; answer from this load but do not keep it
+                return loaded;
+            }
+            state.days.entrySet().removeIf(e -> e.getKey().isBefore(LocalDate.now()) || !fresh(e.getValue()));
+            for (Map.Entry<LocalDate, DayOccupancy> entry : loaded.entrySet()) {
+                DayOccupancy existing = state.days.putIfAbsent(entry.getKey(), entry.getValue());
+                if (existing != null) {
+                    entry.setValue(existing);
+                }
+            }
+            while (state.days.size() > maxDays) {
+                state.days.entrySet().stream()
+                        .min(Map.Entry.comparingByValue(Comparator.comparingLong((DayOccupancy d) -> d.loadedAt)))
+                        .ifPresent(oldest -> state.days.remove(oldest.getKey()));
+            }
+            return loaded;
+        }
+    }
+
+    private boolean fresh(DayOccupancy day) {
+        return day != null && fresh(day.loadedAt);
+    }
+
+    private boolean fresh(long loadedAt) {
+        return System.currentTimeMillis() - loadedAt < ttlMillis;
+    }
+
+    private static List<String> freeSlots(DoctorSlots slots, DayOccupancy day, LocalDate date) {
+        int dayOfWeek = date.getDayOfWeek().getValue();
+        List<String> free = new ArrayList<>(slots.labels.length);
+        for (int i = 0; i < slots.labels.length; i++) {
+            if (slots.appliesTo(i, dayOfWeek) && !day.get(slots.startMinutes[i])) {
+                free.add(slots.labels[i]);
+            }
+        }
+        return free;
+    }
+
+    // Runs load once for all callers asking for the same key at the same time; the others wait for its result
+    private static <K, V> V singleFlight(Map<K, CompletableFuture<V>> inFlight, K key, Supplier<V> load) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            V value = load.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private static int minuteOfDay(LocalDateTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+}
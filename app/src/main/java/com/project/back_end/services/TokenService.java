@@ -7,6 +7,7 @@ import javax.crypto.SecretKey;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.project.back_end.DTO.AuthenticatedUser;
 import com.project.back_end.models.Admin;
 import com.project.back_end.models.Doctor;
 import com.project.back_end.models.Patient;
@@ -14,15 +15,35 @@ import com.project.back_end.repo.AdminRepository;
 import com.project.back_end.repo.DoctorRepository;
 import com.project.back_end.repo.PatientRepository;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 
 @Component
 public class TokenService {
 
+    private static final long TOKEN_LIFETIME_MILLIS = 1000L * 60 * 60 * 24 * 7;
+
+    // Signed claims carrying who the token belongs to, so the account is found by primary key
+    private static final String ROLE_CLAIM = "role";
+    private static final String USER_ID_CLAIM = "uid";
+
     @Value("${jwt.secret}")
     private String secret;
 
+    @Value("${jwt.cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    @Value("${jwt.cache.ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    // Built once: key derivation and parser construction are not free on every request
+    private SecretKey signingKey;
+    private JwtParser parser;
+    private VerifiedTokenCache cache;
+
     private final AdminRepository adminRepository;
     private final DoctorRepository doctorRepository;
     private final PatientRepository patientRepository;
@@ -32,57 +53,116 @@ public class TokenService {
         this.patientRepository=patientRepository;
     }
 
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parser().verifyWith(signingKey).build();
+        cache = new VerifiedTokenCache(cacheMaxSize, cacheTtlSeconds * 1000);
+    }
+
     // Return type changed to SecretKey to fix verifyWith(...) issue
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return signingKey;
     }
 
-    public String generateToken(String email) {
+    // role is "admin", "doctor" or "patient" and userId the id of that account
+    public String generateToken(String email, String role, Long userId) {
         return Jwts.builder()
                 .subject(email)
+                .claim(ROLE_CLAIM, role)
+                .claim(USER_ID_CLAIM, userId)
                 .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + 1000L * 60 * 60 * 24 * 7))
+                .expiration(new Date(System.currentTimeMillis() + TOKEN_LIFETIME_MILLIS))
                 .signWith(getSigningKey()) // clean & modern
                 .compact();
     }
 
-    public String extractEmail(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey()) // No more error now
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+    // Verifies the signature and checks the account once per token; later calls are answered from the cache
+    // for at most jwt.cache.ttl-seconds, which bounds how long a deleted or changed account keeps working
+    private VerifiedTokenCache.Entry verify(String token) {
+        VerifiedTokenCache.Entry entry = cache.get(token);
+        if (entry != null) {
+            return entry;
+        }
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        Date expiration = claims.getExpiration();
+        long expiresAt = expiration != null ? expiration.getTime() : Long.MAX_VALUE;
+        String role = claims.get(ROLE_CLAIM, String.class);
+        Long userId = claims.get(USER_ID_CLAIM, Long.class);
+        AuthenticatedUser user = role != null && userId != null
+                ? confirm(role, userId, claims.getSubject())
+                : lookUp(claims.getSubject());
+        return cache.put(token, claims.getSubject(), user, expiresAt);
     }
 
-    public boolean validateToken(String token,String user) {
+    // The user a token belongs to, or null when it is invalid, expired or its account is gone.
+    // Current tokens are checked by the id in their claims; tokens issued before the role claims existed are
+    // looked up by subject in every account table
+    public AuthenticatedUser authenticate(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
         try {
-            String extracted = extractEmail(token);
-            switch (user) {
-                case "admin" -> {
-                    Admin admin = adminRepository.findByUsername(extracted);
-                    if (admin != null) {
-                        return true;
-                    }
-                }
-                case "doctor" -> {
-                    Doctor doctor = doctorRepository.findByEmail(extracted);
-                    if (doctor != null) {
-                        return true;
-                    }
-                }
-                case "patient" -> {
-                    Patient patient = patientRepository.findByEmail(extracted);
-                    if (patient != null) {
-                        return true;
-                    }
-                }
-            }
-
-            return false;
+            return verify(token).getUser();
         } catch (Exception e) {
-            return false;
+            return null;
+        }
+    }
+
+    public boolean validateToken(String token,String user) {
+        AuthenticatedUser authenticated = authenticate(token);
+        return authenticated != null && authenticated.hasRole(user);
+    }
+
+    // The claimed account, as long as it still exists under the token's subject. Soft-deleted doctors are not
+    // found and a changed email no longer matches, so this rejects them on every instance once the entry expires
+    private AuthenticatedUser confirm(String role, Long userId, String subject) {
+        String current = switch (role) {
+            case "admin" -> adminRepository.findById(userId).map(Admin::getUsername).orElse(null);
+            case "doctor" -> doctorRepository.findById(userId).map(Doctor::getEmail).orElse(null);
+            case "patient" -> patientRepository.findById(userId).map(Patient::getEmail).orElse(null);
+            default -> null;
+        };
+        return current != null && current.equals(subject) ? new AuthenticatedUser(role, userId, subject) : null;
+    }
+
+    // Finds the account behind a subject of a token without role claims
+    private AuthenticatedUser lookUp(String subject) {
+        Admin admin = adminRepository.findByUsername(subject);
+        if (admin != null) {
+            return new AuthenticatedUser("admin", admin.getId(), subject);
+        }
+        Doctor doctor = doctorRepository.findByEmail(subject);
+        if (doctor != null) {
+            return new AuthenticatedUser("doctor", doctor.getId(), subject);
         }
+        Patient patient = patientRepository.findByEmail(subject);
+        if (patient != null) {
+            return new AuthenticatedUser("patient", patient.getId(), subject);
+        }
+        return null;
+    }
+
+    // Forget cached verifications for an account that was removed or changed, so this instance checks its
+    // tokens against the database on their next use instead of waiting for the cache entries to expire
+    public void invalidate(String email) {
+        cache.invalidateSubject(email);
+    }
+
+    public long getCacheHits() {
+        return cache.getHits();
+    }
+
+    public long getCacheMisses() {
+        return cache.getMisses();
+    }
+
+    public long getCacheEvictions() {
+        return cache.getEvictions();
+    }
+
+    public int getCacheSize() {
+        return cache.size();
     }
 
 
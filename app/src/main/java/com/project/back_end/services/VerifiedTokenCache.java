@@ -0,0 +1,122 @@
+package com.project.back_end.services;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.project.back_end.DTO.AuthenticatedUser;
+
+/**
+ * Bounded cache of tokens whose signature has already been verified.
+ * Each entry remembers the subject, the user the token was resolved to and when it stops being valid,
+ * which is the earlier of the token expiry and the configured time to live.
+ */
+public class VerifiedTokenCache {
+
+    public static final class Entry {
+        private final String subject;
+        private final long expiresAt;
+        private final AuthenticatedUser user;
+
+        Entry(String subject, AuthenticatedUser user, long expiresAt) {
+            this.subject = subject;
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        // Null when the token's account no longer exists
+        public AuthenticatedUser getUser() {
+            return user;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final long timeToLiveMillis;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public VerifiedTokenCache(int maxSize, long timeToLiveMillis) {
+        this.maxSize = maxSize;
+        this.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    // Returns the cached entry, or null when the token was never verified or has expired
+    public Entry get(String token) {
+        Entry entry = entries.get(token);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(token, entry);
+            evictions.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry;
+    }
+
+    public Entry put(String token, String subject, AuthenticatedUser user, long tokenExpiresAt) {
+        if (entries.size() >= maxSize) {
+            makeRoom();
+        }
+        long expiresAt = Math.min(tokenExpiresAt, System.currentTimeMillis() + timeToLiveMillis);
+        Entry entry = new Entry(subject, user, expiresAt);
+        Entry existing = entries.putIfAbsent(token, entry);
+        return existing != null ? existing : entry;
+    }
+
+    // Drops every cached token issued to the given subject, e.g. after the account is removed
+    public void invalidateSubject(String subject) {
+        entries.values().removeIf(entry -> entry.subject.equals(subject));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private void makeRoom() {
+        long now = System.currentTimeMillis();
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+
+        // Still full: drop an arbitrary tenth of the entries rather than tracking recency on the hot path
+        Iterator<String> it = entries.keySet().iterator();
+        int toDrop = entries.size() >= maxSize ? Math.max(1, maxSize / 10) : 0;
+        while (toDrop > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+            toDrop--;
+        }
+        evictions.add(Math.max(0, before - entries.size()));
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
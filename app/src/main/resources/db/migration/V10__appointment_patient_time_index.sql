@@ -0,0 +1,2 @@
+-- A patient's appointment pages without a status filter, in (appointment_time, id) order straight from the index
+CREATE INDEX idx_appointment_patient_time ON appointment (patient_id, appointment_time, id);
@@ -0,0 +1,11 @@
+-- Version stamp of the doctor directory behind the ETags of the directory endpoints. Every doctor write bumps it,
+-- so all instances and restarts agree on it. Seeded from the clock so a recreated database does not hand out
+-- tags that an older one already used.
+
+CREATE TABLE IF NOT EXISTS doctor_directory_version (
+    id      TINYINT NOT NULL,
+    version BIGINT NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+INSERT IGNORE INTO doctor_directory_version (id, version) VALUES (1, UNIX_TIMESTAMP());
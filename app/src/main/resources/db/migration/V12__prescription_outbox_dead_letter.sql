@@ -0,0 +1,7 @@
+-- Outbox rows that keep failing are set aside as failed after prescription.outbox.max-attempts instead of being
+-- retried forever; the relay only picks pending rows.
+
+ALTER TABLE prescription_outbox ADD COLUMN status VARCHAR(20) NOT NULL DEFAULT 'pending';
+
+DROP INDEX idx_outbox_next_attempt ON prescription_outbox;
+CREATE INDEX idx_outbox_status_next_attempt ON prescription_outbox (status, next_attempt_at);
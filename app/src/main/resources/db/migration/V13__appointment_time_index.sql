@@ -0,0 +1,2 @@
+-- The admin export of a time range across all doctors, in (appointment_time, id) order straight from the index
+CREATE INDEX idx_appointment_time ON appointment (appointment_time, id);
@@ -0,0 +1,48 @@
+-- The original schema, as Hibernate's ddl-auto=update created it before migrations were introduced.
+-- Databases created that way are baselined at this version and never run this script. Everything added to the
+-- schema since then is in the later migrations, which skip objects that a ddl-auto=update deploy already created.
+
+CREATE TABLE admin (
+    id       BIGINT NOT NULL AUTO_INCREMENT,
+    password VARCHAR(255) NOT NULL,
+    username VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE doctor (
+    id        BIGINT NOT NULL AUTO_INCREMENT,
+    email     VARCHAR(255) NOT NULL,
+    name      VARCHAR(100) NOT NULL,
+    password  VARCHAR(255) NOT NULL,
+    phone     VARCHAR(255) NOT NULL,
+    specialty VARCHAR(50) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- Free-text availability, one "HH:mm-HH:mm" string per row
+CREATE TABLE doctor_available_times (
+    doctor_id       BIGINT NOT NULL,
+    available_times VARCHAR(255),
+    CONSTRAINT FKdgs10srq75djpwnb9c22k3lmk FOREIGN KEY (doctor_id) REFERENCES doctor (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE patient (
+    id       BIGINT NOT NULL AUTO_INCREMENT,
+    address  VARCHAR(255) NOT NULL,
+    email    VARCHAR(255) NOT NULL,
+    name     VARCHAR(100) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    phone    VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE appointment (
+    id               BIGINT NOT NULL AUTO_INCREMENT,
+    appointment_time DATETIME(6),
+    status           INTEGER NOT NULL,
+    doctor_id        BIGINT NOT NULL,
+    patient_id       BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT FKoeb98n82eph1dx43v3y2bcmsl FOREIGN KEY (doctor_id) REFERENCES doctor (id),
+    CONSTRAINT FK4apif2ewfyf14077ichee8g06 FOREIGN KEY (patient_id) REFERENCES patient (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,11 @@
+-- One appointment per doctor and start time, so two instances cannot book the same slot.
+-- Fails on a database that already holds double bookings; resolve those before upgrading.
+
+SET @ddl = IF(EXISTS (SELECT * FROM information_schema.statistics
+                      WHERE table_schema = DATABASE() AND table_name = 'appointment'
+                        AND index_name = 'uk_appointment_doctor_time'),
+              'DO 0',
+              'ALTER TABLE appointment ADD CONSTRAINT uk_appointment_doctor_time UNIQUE (doctor_id, appointment_time)');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
@@ -0,0 +1,7 @@
+-- Pooled appointment ids, so bulk bookings can be inserted as one JDBC batch. MySQL has no sequences, so Hibernate
+-- keeps the next value in a single-row table. Existing rows got their ids from AUTO_INCREMENT; the sequence starts
+-- MAX(id) + 50 (the allocationSize) ahead of them, and afterMigrate keeps it there.
+
+CREATE TABLE IF NOT EXISTS appointment_seq (next_val BIGINT) ENGINE = InnoDB;
+INSERT INTO appointment_seq
+SELECT COALESCE(MAX(id), 0) + 50 FROM appointment WHERE NOT EXISTS (SELECT * FROM appointment_seq);
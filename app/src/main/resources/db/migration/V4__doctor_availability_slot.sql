@@ -0,0 +1,53 @@
+-- Structured availability: one row per slot with its start minute, length and optional ISO weekday
+-- (1 = Monday, NULL = every day), indexed so the time-of-day filters can be answered in SQL.
+-- Replaces the free-text doctor_available_times table, whose rows are converted here once and which is then dropped.
+
+-- A ddl-auto=update deploy may have created the table already, and converted the old rows on every start since
+SET @convert = (SELECT COUNT(*) = 0 FROM information_schema.tables
+                WHERE table_schema = DATABASE() AND table_name = 'doctor_availability_slot');
+
+CREATE TABLE IF NOT EXISTS doctor_availability_slot (
+    doctor_id        BIGINT NOT NULL,
+    start_minute     INTEGER NOT NULL,
+    duration_minutes INTEGER NOT NULL,
+    day_of_week      INTEGER,
+    KEY idx_slot_doctor_start (doctor_id, start_minute),
+    CONSTRAINT fk_slot_doctor FOREIGN KEY (doctor_id) REFERENCES doctor (id)
+) ENGINE = InnoDB;
+
+-- Same rules as AvailabilitySlot.parse: "HH:mm-HH:mm" (seconds allowed and ignored), optionally after a day such
+-- as "MON "; an end at or before the start runs past midnight. Strings parse rejects are not converted.
+INSERT INTO doctor_availability_slot (doctor_id, start_minute, duration_minutes, day_of_week)
+SELECT doctor_id, start_minute,
+       IF(end_minute > start_minute, end_minute - start_minute, end_minute + 24 * 60 - start_minute),
+       day_of_week
+FROM (
+    SELECT doctor_id,
+           IF(day_name IS NULL, NULL, FIELD(UPPER(day_name), 'MON', 'TUE', 'WED', 'THU', 'FRI', 'SAT', 'SUN'))
+               AS day_of_week,
+           day_name,
+           start_text,
+           end_text,
+           SUBSTRING(start_text, 1, 2) * 60 + SUBSTRING(start_text, 4, 2) AS start_minute,
+           SUBSTRING(end_text, 1, 2) * 60 + SUBSTRING(end_text, 4, 2) AS end_minute
+    FROM (
+        SELECT doctor_id,
+               day_name,
+               TRIM(SUBSTRING_INDEX(times, '-', 1)) AS start_text,
+               IF(LOCATE('-', times) > 0, TRIM(SUBSTRING_INDEX(SUBSTRING_INDEX(times, '-', 2), '-', -1)), NULL)
+                   AS end_text
+        FROM (
+            SELECT doctor_id,
+                   IF(LOCATE(' ', label) > 0, SUBSTRING_INDEX(label, ' ', 1), NULL) AS day_name,
+                   IF(LOCATE(' ', label) > 0, TRIM(SUBSTRING(label, LOCATE(' ', label) + 1)), label) AS times
+            FROM (SELECT doctor_id, TRIM(available_times) AS label FROM doctor_available_times) legacy
+        ) split_day
+    ) split_times
+) parsed
+WHERE @convert
+  AND start_text REGEXP '^([01][0-9]|2[0-3]):[0-5][0-9](:[0-5][0-9](\\.[0-9]{1,9})?)?$'
+  AND end_text REGEXP '^([01][0-9]|2[0-3]):[0-5][0-9](:[0-5][0-9](\\.[0-9]{1,9})?)?$'
+  AND (day_name IS NULL OR day_of_week > 0);
+
+-- Also takes its foreign key to doctor with it, which would otherwise block purging deleted doctors
+DROP TABLE IF EXISTS doctor_available_times;
@@ -0,0 +1,9 @@
+-- Pooled doctor and patient ids, so bulk imports can be inserted as JDBC batches; same scheme as appointment_seq.
+
+CREATE TABLE IF NOT EXISTS doctor_seq (next_val BIGINT) ENGINE = InnoDB;
+INSERT INTO doctor_seq
+SELECT COALESCE(MAX(id), 0) + 50 FROM doctor WHERE NOT EXISTS (SELECT * FROM doctor_seq);
+
+CREATE TABLE IF NOT EXISTS patient_seq (next_val BIGINT) ENGINE = InnoDB;
+INSERT INTO patient_seq
+SELECT COALESCE(MAX(id), 0) + 50 FROM patient WHERE NOT EXISTS (SELECT * FROM patient_seq);
@@ -0,0 +1,18 @@
+-- Prescriptions waiting to be written to MongoDB; saved in the same transaction as the checks that allow them
+-- and relayed by PrescriptionOutboxRelay.
+
+CREATE TABLE IF NOT EXISTS prescription_outbox (
+    id              BIGINT NOT NULL AUTO_INCREMENT,
+    appointment_id  BIGINT NOT NULL,
+    patient_name    VARCHAR(255),
+    medication      VARCHAR(255),
+    dosage          VARCHAR(255),
+    doctor_notes    VARCHAR(200),
+    created_at      DATETIME(6),
+    attempts        INTEGER NOT NULL,
+    next_attempt_at DATETIME(6) NOT NULL,
+    last_error      VARCHAR(500),
+    PRIMARY KEY (id),
+    KEY idx_outbox_next_attempt (next_attempt_at),
+    KEY idx_outbox_appointment (appointment_id)
+) ENGINE = InnoDB;
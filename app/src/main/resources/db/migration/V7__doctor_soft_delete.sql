@@ -0,0 +1,21 @@
+-- Deleted doctors are hidden right away (deleted_at) and purged in the background, one job per doctor.
+
+SET @ddl = IF(EXISTS (SELECT * FROM information_schema.columns
+                      WHERE table_schema = DATABASE() AND table_name = 'doctor' AND column_name = 'deleted_at'),
+              'DO 0',
+              'ALTER TABLE doctor ADD COLUMN deleted_at DATETIME(6)');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+CREATE TABLE IF NOT EXISTS doctor_purge_job (
+    id                   BIGINT NOT NULL AUTO_INCREMENT,
+    doctor_id            BIGINT NOT NULL,
+    status               VARCHAR(20) NOT NULL,
+    appointments_deleted BIGINT NOT NULL,
+    requested_at         DATETIME(6),
+    finished_at          DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_purge_doctor UNIQUE (doctor_id),
+    KEY idx_purge_status (status)
+) ENGINE = InnoDB;
@@ -0,0 +1,32 @@
+-- Indexes behind the queries run on nearly every request.
+-- The doctor's day (findDtoByDoctorIdAndAppointmentTimeBetween and its id/time variants) is already
+-- served by uk_appointment_doctor_time (doctor_id, appointment_time).
+
+-- Existing duplicate emails or usernames would make the unique keys below fail halfway, so check for them before
+-- any DDL and stop with an error naming the columns. Find the rows with e.g.
+--   SELECT email, COUNT(*) FROM patient WHERE email IS NOT NULL GROUP BY email HAVING COUNT(*) > 1;
+-- and rename or merge the extra accounts (and their appointments) before upgrading.
+SET @duplicates = CONCAT_WS(', ',
+    IF(EXISTS (SELECT email FROM doctor WHERE email IS NOT NULL GROUP BY email HAVING COUNT(*) > 1),
+       'doctor.email', NULL),
+    IF(EXISTS (SELECT email FROM patient WHERE email IS NOT NULL GROUP BY email HAVING COUNT(*) > 1),
+       'patient.email', NULL),
+    IF(EXISTS (SELECT username FROM admin WHERE username IS NOT NULL GROUP BY username HAVING COUNT(*) > 1),
+       'admin.username', NULL));
+SET @check = IF(@duplicates = '',
+                'DO 0',
+                CONCAT('SELECT `Duplicate values in ', @duplicates, ', resolve them before upgrading (see V8)`'));
+PREPARE check_duplicates FROM @check;
+EXECUTE check_duplicates;
+DEALLOCATE PREPARE check_duplicates;
+
+-- A patient's appointments: by patient, by patient + status ordered by time, and the keyset pages
+CREATE INDEX idx_appointment_patient_status_time ON appointment (patient_id, status, appointment_time);
+
+-- Login and token lookups; the unique keys also stop two accounts from sharing an email
+CREATE UNIQUE INDEX uk_doctor_email ON doctor (email);
+CREATE UNIQUE INDEX uk_patient_email ON patient (email);
+CREATE UNIQUE INDEX uk_admin_username ON admin (username);
+
+-- Second half of findByEmailOrPhone, so the OR is answered by an index merge instead of a scan
+CREATE INDEX idx_patient_phone ON patient (phone);
@@ -0,0 +1,16 @@
+-- Purge jobs count their failed chunks and back off between attempts, so one failing job no longer holds up
+-- the queue; after doctor.purge.max-attempts the job is marked failed.
+
+ALTER TABLE doctor_purge_job
+    ADD COLUMN attempts INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN next_attempt_at DATETIME(6),
+    ADD COLUMN last_error VARCHAR(500);
+UPDATE doctor_purge_job SET next_attempt_at = COALESCE(requested_at, NOW(6));
+ALTER TABLE doctor_purge_job MODIFY next_attempt_at DATETIME(6) NOT NULL;
+
+DROP INDEX idx_purge_status ON doctor_purge_job;
+CREATE INDEX idx_purge_status_next_attempt ON doctor_purge_job (status, next_attempt_at);
+
+-- Deleting a doctor now renames their email, so it can be registered again; same for doctors deleted before
+UPDATE doctor SET email = LEFT(CONCAT('deleted-', id, ':', email), 255)
+WHERE deleted_at IS NOT NULL AND email NOT LIKE 'deleted-%';
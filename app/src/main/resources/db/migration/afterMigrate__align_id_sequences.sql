@@ -0,0 +1,8 @@
+-- Runs after every migrate, i.e. on every start, before Hibernate hands out ids.
+-- Rows can get ids outside the pooled sequences: tables that predate them used AUTO_INCREMENT, and ddl-auto=update
+-- created the sequence rows at 1. Hibernate's pooled optimizer hands out the 50 ids up to the value it reads, so each
+-- sequence is kept at least MAX(id) + 50 (the allocationSize) ahead of the existing rows.
+
+UPDATE doctor_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 50 FROM doctor));
+UPDATE patient_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 50 FROM patient));
+UPDATE appointment_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 50 FROM appointment));
@@ -1,10 +1,12 @@
-import { getAllAppointments } from "./services/appointmentRecordService.js";
+import { getAllAppointments, subscribeToAppointmentEvents } from "./services/appointmentRecordService.js";
 import { createPatientRow } from "./components/patientRows.js";
 
 const tableBody = document.getElementById("patientTableBody");
 let selectedDate = new Date().toISOString().split('T')[0];
 let token = localStorage.getItem("token");
 let patientName = null;
+// The appointments in the table, kept current by the event stream between full loads
+let appointments = [];
 
 document.getElementById("searchBar").addEventListener("input", (e) => {
   const value = e.target.value.trim();
@@ -30,33 +32,52 @@ async function loadAppointments() {
 
   try {
     const response = await getAllAppointments(selectedDate, patientName, token);
-    const appointments = response.appointments || [];
-
-    tableBody.innerHTML = "";
-
-    if (appointments.length === 0) {
-      tableBody.innerHTML = `<tr><td colspan="5">No Appointments found for today.</td></tr>`;
-      return;
-    }
-    console.log(appointments)
-    appointments.forEach(appointment => {
-      const patient = {
-        id: appointment.patientId,
-        name: appointment.patientName,
-        phone: appointment.patientPhone,
-        email: appointment.patientEmail,
-      };
-      console.log(appointment.doctorId)
-      const row = createPatientRow(patient,appointment.id,appointment.doctorId);
-      tableBody.appendChild(row);
-    });
+    appointments = response.appointments || [];
+    renderAppointments();
   } catch (error) {
     console.error("Error loading appointments:", error);
     tableBody.innerHTML = `<tr><td colspan="5">Error loading appointments. Try again later.</td></tr>`;
   }
 }
 
+function renderAppointments() {
+  tableBody.innerHTML = "";
+
+  if (appointments.length === 0) {
+    tableBody.innerHTML = `<tr><td colspan="5">No Appointments found for today.</td></tr>`;
+    return;
+  }
+  appointments.forEach(appointment => {
+    const patient = {
+      id: appointment.patientId,
+      name: appointment.patientName,
+      phone: appointment.patientPhone,
+      email: appointment.patientEmail,
+    };
+    const row = createPatientRow(patient,appointment.id,appointment.doctorId);
+    tableBody.appendChild(row);
+  });
+}
+
+// Same filter as the appointments endpoint: the selected day and, if set, part of the patient name
+function isShown(appointment) {
+  const name = patientName && patientName !== "null" ? patientName.toLowerCase() : null;
+  return appointment.appointmentDate === selectedDate
+    && (name === null || appointment.patientName.toLowerCase().includes(name));
+}
+
+// Applies a pushed change to the table instead of fetching the whole day again
+function applyAppointmentEvent(type, appointment) {
+  appointments = appointments.filter(a => a.id !== appointment.id);
+  if (type !== "cancelled" && isShown(appointment)) {
+    appointments.push(appointment);
+    appointments.sort((a, b) => a.appointmentTime.localeCompare(b.appointmentTime));
+  }
+  renderAppointments();
+}
+
 window.addEventListener("DOMContentLoaded", () => {
   renderContent();
   loadAppointments();
+  subscribeToAppointmentEvents(token, applyAppointmentEvent, loadAppointments);
 });
\ No newline at end of file
@@ -2,7 +2,7 @@
 import { getDoctors } from './services/doctorServices.js';
 import { openModal } from './components/modals.js';
 import { createDoctorCard } from './components/doctorCard.js';
-import { filterDoctors } from './services/doctorServices.js';//call the same function to avoid duplication coz the functionality was same
+import { filterDoctors, autocompleteDoctors } from './services/doctorServices.js';//call the same function to avoid duplication coz the functionality was same
 import { patientSignup, patientLogin } from './services/patientServices.js';
 
 
@@ -44,11 +44,33 @@ function loadDoctorCards() {
 }
 // Filter Input
 document.getElementById("searchBar").addEventListener("input", filterDoctorsOnChange);
+document.getElementById("searchBar").addEventListener("input", suggestDoctorNames);
 document.getElementById("filterTime").addEventListener("change", filterDoctorsOnChange);
 document.getElementById("filterSpecialty").addEventListener("change", filterDoctorsOnChange);
 
 
 
+// Fills a datalist under the search bar with matching doctor names
+async function suggestDoctorNames() {
+  const searchBar = document.getElementById("searchBar");
+  let list = document.getElementById("doctorSuggestions");
+  if (!list) {
+    list = document.createElement("datalist");
+    list.id = "doctorSuggestions";
+    searchBar.after(list);
+    searchBar.setAttribute("list", list.id);
+  }
+  const prefix = searchBar.value.trim();
+  const suggestions = prefix.length > 0 ? await autocompleteDoctors(prefix) : [];
+  list.innerHTML = "";
+  suggestions.forEach(doctor => {
+    const option = document.createElement("option");
+    option.value = doctor.name;
+    option.label = doctor.specialty;
+    list.appendChild(option);
+  });
+}
+
 function filterDoctorsOnChange() {
   const searchBar = document.getElementById("searchBar").value.trim();
   const filterTime = document.getElementById("filterTime").value;
@@ -13,6 +13,17 @@ export async function getAllAppointments(date, patientName, token) {
   return await response.json();
 }
 
+// Live changes to the doctor's appointments; onEvent(type, appointment) gets booked, updated, cancelled and status
+// events, onResync() is called when the list may have missed changes and should be fetched again
+export function subscribeToAppointmentEvents(token, onEvent, onResync) {
+  const source = new EventSource(`${APPOINTMENT_API}/events/${token}`);
+  ["booked", "updated", "cancelled", "status"].forEach(type => {
+    source.addEventListener(type, (e) => onEvent(type, JSON.parse(e.data)));
+  });
+  source.addEventListener("resync", () => onResync());
+  return source;
+}
+
 export async function bookAppointment(appointment, token) {
   try {
     const response = await fetch(`${APPOINTMENT_API}/${token}`, {
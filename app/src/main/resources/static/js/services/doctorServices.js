@@ -44,6 +44,21 @@ export async function getDoctors() {
     }
   }
 
+  // Name suggestions for the search box: [{ id, name, specialty }]
+  export async function autocompleteDoctors(prefix, limit = 8) {
+    try {
+      const response = await fetch(`${DOCTOR_API}/autocomplete/${encodeURIComponent(prefix)}?limit=${limit}`);
+      if (response.ok) {
+        const data = await response.json();
+        return data.suggestions;
+      }
+      return [];
+    } catch (error) {
+      console.error("Error :: autocompleteDoctors :: ", error);
+      return [];
+    }
+  }
+
   export async function filterDoctors(name ,time ,specialty) {
     try {
       const response = await fetch(`${DOCTOR_API}/filter/${name}/${time}/${specialty}`, {
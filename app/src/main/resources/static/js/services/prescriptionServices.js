@@ -44,3 +44,25 @@ export async function getPrescription(appointmentId, token) {
     throw error;
   }
 }
+
+// Prescriptions of several appointments at once, keyed by appointment id.
+// Pass either { appointmentIds: [...] } or { date: "yyyy-MM-dd" } (the logged-in doctor's day).
+export async function getPrescriptions({ appointmentIds, date }, token) {
+  const params = new URLSearchParams();
+  if (date) {
+    params.set("date", date);
+  } else {
+    params.set("appointmentIds", appointmentIds.join(","));
+  }
+  try {
+    const response = await fetch(`${PRESCRITION_API}/batch/${token}?${params}`);
+    const result = await response.json();
+    if (!response.ok) {
+      throw new Error(result.message || "Unable to fetch prescriptions");
+    }
+    return result.prescriptions;
+  } catch (error) {
+    console.error("Error :: getPrescriptions ::", error);
+    throw error;
+  }
+}
@@ -0,0 +1,101 @@
+package com.project.back_end;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Throughput and p99 latency of the two hottest read endpoints against a running server.
+ * Start the app once normally and once with --spring.profiles.active=virtual-threads, then run e.g.
+ *
+ * mvn test -Dtest=ThreadingModeLoadTest -Dloadtest.baseUrl=http://localhost:8080 -Dloadtest.label=virtual
+ *     -Dloadtest.token=DOCTOR_JWT -Dloadtest.doctorId=1 -Dloadtest.concurrency=400 -Dloadtest.requests=20000
+ *
+ * and compare the two printed lines per endpoint. Skipped unless loadtest.baseUrl is set.
+ */
+@EnabledIfSystemProperty(named = "loadtest.baseUrl", matches = ".+")
+class ThreadingModeLoadTest {
+
+    private final String baseUrl = System.getProperty("loadtest.baseUrl");
+    private final String label = System.getProperty("loadtest.label", "server");
+    private final String token = System.getProperty("loadtest.token", "");
+    private final String doctorId = System.getProperty("loadtest.doctorId", "1");
+    private final String date = System.getProperty("loadtest.date", LocalDate.now().plusDays(1).toString());
+    private final int concurrency = Integer.getInteger("loadtest.concurrency", 200);
+    private final int requests = Integer.getInteger("loadtest.requests", 10000);
+
+    @Test
+    void doctorDayAppointments() throws Exception {
+        run("/appointments", baseUrl + "/appointments/" + date + "/null/" + token);
+    }
+
+    @Test
+    void doctorAvailability() throws Exception {
+        run("/doctor/availability", baseUrl + "/doctor/availability/doctor/" + doctorId + "/" + date + "/" + token);
+    }
+
+    private void run(String endpoint, String url) throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30)).GET().build();
+
+        // Warm up JIT, pools and caches before measuring
+        for (int i = 0; i < Math.min(500, requests); i++) {
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int w = 0; w < concurrency; w++) {
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+                    long began = System.nanoTime();
+                    try {
+                        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        if (status != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    latencies[i] = System.nanoTime() - began;
+                }
+                return null;
+            }));
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        double seconds = (System.nanoTime() - began) / 1e9;
+        pool.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.printf("%-22s %-10s %8.0f req/s  p50 %7.1f ms  p99 %7.1f ms  errors %d/%d (concurrency %d)%n",
+                endpoint, label, requests / seconds, latencies[requests / 2] / 1e6,
+                latencies[(int) (requests * 0.99)] / 1e6, errors.get(), requests, concurrency);
+        assertTrue(errors.get() < requests, "every request failed; check loadtest.token and loadtest.doctorId");
+    }
+}
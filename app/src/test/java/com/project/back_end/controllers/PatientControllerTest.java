@@ -0,0 +1,72 @@
+package com.project.back_end.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.project.back_end.DTO.AuthenticatedUser;
+import com.project.back_end.services.PatientService;
+import com.project.back_end.services.Service;
+
+class PatientControllerTest {
+
+    private static final long PATIENT_A = 41L;
+    private static final long PATIENT_B = 42L;
+
+    private final PatientController controller;
+
+    PatientControllerTest() {
+        PatientService patientService = mock(PatientService.class, withSettings().stubOnly());
+        when(patientService.getPatientAppointment(any())).thenAnswer(call -> {
+            Map<String, Object> map = new HashMap<>();
+            map.put("appointments", List.of());
+            return ResponseEntity.status(HttpStatus.OK).body(map);
+        });
+        Service service = new Service(null, null, null, null, null, patientService, null);
+        controller = new PatientController(patientService, service, null);
+    }
+
+    @Test
+    void patientGetsTheirOwnAppointments() {
+        ResponseEntity<Map<String, Object>> response = controller.getPatientAppointments(PATIENT_A, patient(PATIENT_A));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    @Test
+    void patientCannotReadAnotherPatientsAppointments() {
+        ResponseEntity<Map<String, Object>> response = controller.getPatientAppointments(PATIENT_B, patient(PATIENT_A));
+
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+    }
+
+    @Test
+    void otherRolesAndMissingTokensAreUnauthorized() {
+        AuthenticatedUser doctor = new AuthenticatedUser("doctor", PATIENT_B, "doctor42@clinic.test");
+
+        assertEquals(HttpStatus.UNAUTHORIZED, controller.getPatientAppointments(PATIENT_B, doctor).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, controller.getPatientAppointments(PATIENT_B, null).getStatusCode());
+    }
+
+    @Test
+    void filterWithoutConditionOrNameListsEverything() {
+        ResponseEntity<Map<String, Object>> response = controller.filterPatientAppointments(null, null, null, null,
+                patient(PATIENT_A));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    private static AuthenticatedUser patient(long id) {
+        return new AuthenticatedUser("patient", id, "patient" + id + "@clinic.test");
+    }
+}
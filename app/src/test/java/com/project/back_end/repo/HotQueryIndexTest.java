@@ -0,0 +1,284 @@
+package com.project.back_end.repo;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.project.back_end.DTO.AppointmentDTO;
+
+/**
+ * Runs the Flyway migrations against a real MySQL (which also has Hibernate validate the entities against them),
+ * seeds a few thousand rows, calls the hot repository methods and EXPLAINs every statement they sent. Fails when
+ * any table in a plan is read with a full table or full index scan. Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "spring.data.mongodb.uri=mongodb://127.0.0.1:1/test?serverSelectionTimeoutMS=300",
+        "prescription.outbox.poll-interval-ms=600000",
+        "doctor.purge.poll-interval-ms=600000",
+        "doctor.search.refresh-ms=600000"
+})
+@Import(HotQueryIndexTest.StatementCapture.class)
+class HotQueryIndexTest {
+
+    private static final int DOCTORS = 50;
+    private static final int PATIENTS = 500;
+    private static final int APPOINTMENTS_PER_DOCTOR = 100;
+
+    @Container
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private AdminRepository adminRepository;
+
+    @BeforeEach
+    void seed() {
+        if (jdbc.queryForObject("SELECT COUNT(*) FROM doctor", Integer.class) > 0) {
+            return;
+        }
+        List<Object[]> admins = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            admins.add(new Object[] { "admin" + i, "secret1" });
+        }
+        jdbc.batchUpdate("INSERT INTO admin (username, password) VALUES (?, ?)", admins);
+
+        List<Object[]> doctors = new ArrayList<>();
+        for (int i = 1; i <= DOCTORS; i++) {
+            doctors.add(new Object[] { i, "Doctor " + i, "Cardiology", "doctor" + i + "@clinic.test", "secret1",
+                    String.format("%010d", i) });
+        }
+        jdbc.batchUpdate("INSERT INTO doctor (id, name, specialty, email, password, phone) VALUES (?, ?, ?, ?, ?, ?)",
+                doctors);
+
+        List<Object[]> patients = new ArrayList<>();
+        for (int i = 1; i <= PATIENTS; i++) {
+            patients.add(new Object[] { i, "Patient " + i, "patient" + i + "@clinic.test", "secret1",
+                    String.format("%010d", 1_000_000 + i), i + " Main Street" });
+        }
+        jdbc.batchUpdate("INSERT INTO patient (id, name, email, password, phone, address) VALUES (?, ?, ?, ?, ?, ?)",
+                patients);
+
+        List<Object[]> appointments = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 9, 0);
+        long id = 1;
+        for (int d = 1; d <= DOCTORS; d++) {
+            for (int i = 0; i < APPOINTMENTS_PER_DOCTOR; i++) {
+                appointments.add(new Object[] { id, d, 1 + (id % PATIENTS), start.plusHours(i), (int) (id % 2) });
+                id++;
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO appointment (id, doctor_id, patient_id, appointment_time, status) "
+                + "VALUES (?, ?, ?, ?, ?)", appointments);
+
+        jdbc.execute("ANALYZE TABLE admin, doctor, patient, appointment");
+    }
+
+    static Stream<Arguments> hotQueries() {
+        LocalDateTime dayStart = LocalDateTime.of(2030, 1, 2, 0, 0);
+        LocalDateTime dayEnd = LocalDateTime.of(2030, 1, 2, 23, 59, 59);
+        LocalDateTime after = LocalDateTime.of(2030, 1, 1, 0, 0);
+        // A couple of hours across all doctors, as a report would ask for
+        LocalDateTime exportFrom = LocalDateTime.of(2030, 1, 2, 9, 0);
+        LocalDateTime exportTo = LocalDateTime.of(2030, 1, 2, 11, 0);
+        return Stream.of(
+                hotQuery("AppointmentRepository.findDtoByDoctorIdAndAppointmentTimeBetween",
+                        t -> t.appointmentRepository.findDtoByDoctorIdAndAppointmentTimeBetween(7L, dayStart, dayEnd)),
+                hotQuery("AppointmentRepository.findAppointmentTimesByDoctorIdAndAppointmentTimeBetween",
+                        t -> t.appointmentRepository.findAppointmentTimesByDoctorIdAndAppointmentTimeBetween(7L,
+                                dayStart, dayEnd)),
+                hotQuery("AppointmentRepository.findIdsByDoctorIdAndAppointmentTimeBetween",
+                        t -> t.appointmentRepository.findIdsByDoctorIdAndAppointmentTimeBetween(7L, dayStart, dayEnd)),
+                hotQuery("AppointmentRepository.findDtoByDoctorIdAndPatientNameAndAppointmentTimeBetween",
+                        t -> t.appointmentRepository.findDtoByDoctorIdAndPatientNameAndAppointmentTimeBetween(7L,
+                                "patient 4", dayStart, dayEnd)),
+                hotQuery("AppointmentRepository.findDtoByPatientId",
+                        t -> t.appointmentRepository.findDtoByPatientId(42L)),
+                hotQuery("AppointmentRepository.findDtoByPatientIdAndStatusOrderByAppointmentTimeAsc",
+                        t -> t.appointmentRepository.findDtoByPatientIdAndStatusOrderByAppointmentTimeAsc(42L, 1)),
+                hotQuery("AppointmentRepository.filterDtoByDoctorNameAndPatientId",
+                        t -> t.appointmentRepository.filterDtoByDoctorNameAndPatientId("doctor 7", 42L)),
+                hotQuery("AppointmentRepository.filterDtoByDoctorNameAndPatientIdAndStatus",
+                        t -> t.appointmentRepository.filterDtoByDoctorNameAndPatientIdAndStatus("doctor 7", 42L, 1)),
+                hotQuery("AppointmentRepository.findDtoPageByPatientId",
+                        t -> t.appointmentRepository.findDtoPageByPatientId(42L, null, after, 0L,
+                                PageRequest.of(0, 21))),
+                hotQuery("AppointmentRepository.findDtoPageByPatientIdAndStatus",
+                        t -> t.appointmentRepository.findDtoPageByPatientIdAndStatus(42L, 1, null, after, 0L,
+                                PageRequest.of(0, 21))),
+                hotQuery("AppointmentRepository.findDtoPageByPatientId (doctor name)",
+                        t -> t.appointmentRepository.findDtoPageByPatientId(42L, "doctor 7", after, 0L,
+                                PageRequest.of(0, 21))),
+                hotQuery("AppointmentRepository.streamDtoByAppointmentTimeRange",
+                        t -> t.export(t.appointmentRepository.streamDtoByAppointmentTimeRange(exportFrom, exportTo))),
+                hotQuery("AppointmentRepository.streamDtoByDoctorIdAndAppointmentTimeRange",
+                        t -> t.export(t.appointmentRepository.streamDtoByDoctorIdAndAppointmentTimeRange(7L,
+                                exportFrom, exportTo))),
+                hotQuery("DoctorRepository.findByEmail",
+                        t -> t.doctorRepository.findByEmail("doctor7@clinic.test")),
+                hotQuery("PatientRepository.findByEmail",
+                        t -> t.patientRepository.findByEmail("patient42@clinic.test")),
+                hotQuery("PatientRepository.findByEmailOrPhone",
+                        t -> t.patientRepository.findByEmailOrPhone("patient42@clinic.test", "0001000042")),
+                hotQuery("AdminRepository.findByUsername",
+                        t -> t.adminRepository.findByUsername("admin7")));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    void usesAnIndex(String query, Consumer<HotQueryIndexTest> call) {
+        // Run the repository method itself and EXPLAIN exactly what it sent, bind values included
+        List<CapturedStatement> statements = StatementCapture.during(
+                () -> transactionTemplate.executeWithoutResult(status -> call.accept(this)));
+        assertFalse(statements.isEmpty(), query + " sent no SQL");
+        for (CapturedStatement statement : statements) {
+            for (Map<String, Object> row : jdbc.queryForList("EXPLAIN " + statement.sql(),
+                    statement.parameters().toArray())) {
+                String type = String.valueOf(row.get("type"));
+                // ALL is a full table scan, index a full scan of an index
+                assertFalse(type.equals("ALL") || type.equals("index"),
+                        query + " scans " + row.get("table") + " (" + type + "): " + statement.sql() + " " + row);
+            }
+        }
+    }
+
+    // Drains and closes an export stream, as AppointmentExportService does
+    private void export(Stream<AppointmentDTO> rows) {
+        try (rows) {
+            rows.forEach(row -> {
+            });
+        }
+    }
+
+    private static Arguments hotQuery(String name, Consumer<HotQueryIndexTest> call) {
+        return Arguments.of(name, call);
+    }
+
+    record CapturedStatement(String sql, List<Object> parameters) {
+    }
+
+    /**
+     * Wraps the application's DataSource so the prepared statements run on a thread that asked for it are
+     * recorded with their bind values, as Hibernate generated and bound them. Imported rather than a
+     * TestConfiguration, which the application's component scan would pick up for every other test too.
+     */
+    static class StatementCapture {
+
+        private static final ThreadLocal<List<CapturedStatement>> CAPTURED = new ThreadLocal<>();
+
+        static List<CapturedStatement> during(Runnable work) {
+            List<CapturedStatement> statements = new ArrayList<>();
+            CAPTURED.set(statements);
+            try {
+                work.run();
+            } finally {
+                CAPTURED.remove();
+            }
+            return statements;
+        }
+
+        @Bean
+        static BeanPostProcessor capturingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource)) {
+                        return bean;
+                    }
+                    return proxy(DataSource.class, dataSource, (method, result, args) ->
+                            method.getName().equals("getConnection")
+                                    ? proxy(Connection.class, (Connection) result, StatementCapture::connection)
+                                    : result);
+                }
+            };
+        }
+
+        private static Object connection(Method method, Object result, Object[] args) {
+            if (method.getName().equals("prepareStatement") && CAPTURED.get() != null) {
+                String sql = (String) args[0];
+                Map<Integer, Object> parameters = new TreeMap<>();
+                return proxy(PreparedStatement.class, (PreparedStatement) result, (call, value, callArgs) -> {
+                    String name = call.getName();
+                    if (name.startsWith("set") && callArgs != null && callArgs.length >= 2
+                            && callArgs[0] instanceof Integer index) {
+                        parameters.put(index, name.equals("setNull") ? null : callArgs[1]);
+                    } else if (name.equals("clearParameters")) {
+                        parameters.clear();
+                    } else if (name.startsWith("execute") && CAPTURED.get() != null) {
+                        CAPTURED.get().add(new CapturedStatement(sql, new ArrayList<>(parameters.values())));
+                    }
+                    return value;
+                });
+            }
+            return result;
+        }
+
+        // Calls through to target and hands each result to after, which may wrap it
+        private interface After {
+            Object apply(Method method, Object result, Object[] args);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, After after) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+                try {
+                    return after.apply(method, method.invoke(target, args), args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+        }
+    }
+}
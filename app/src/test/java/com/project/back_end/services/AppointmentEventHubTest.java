@@ -0,0 +1,215 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.DTO.AppointmentDTO;
+
+class AppointmentEventHubTest {
+
+    private static final long DOCTOR_ID = 7L;
+    private static final Pattern EVENT = Pattern.compile("id:(\\S+)\nevent:(\\S+)\n");
+
+    // Emitters in the order the hub handed them out
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final AppointmentEventHub hub = new AppointmentEventHub(new ObjectMapper().findAndRegisterModules(),
+            new StandardEnvironment(), 4) {
+        @Override
+        SseEmitter newEmitter() {
+            RecordingEmitter emitter = new RecordingEmitter();
+            emitters.add(emitter);
+            return emitter;
+        }
+    };
+
+    AppointmentEventHubTest() {
+        ReflectionTestUtils.setField(hub, "replaySize", 3);
+        ReflectionTestUtils.setField(hub, "maxQueued", 10);
+    }
+
+    @AfterEach
+    void shutDown() {
+        hub.shutdown();
+    }
+
+    @Test
+    void reconnectWithLastEventIdGetsOnlyWhatItMissed() throws Exception {
+        RecordingEmitter first = subscribe(DOCTOR_ID, null);
+        publish(DOCTOR_ID, 1L);
+        publish(DOCTOR_ID, 2L);
+        publish(DOCTOR_ID, 3L);
+        await(() -> first.events().size() == 3);
+
+        RecordingEmitter reconnected = subscribe(DOCTOR_ID, first.events().get(0).id());
+        await(() -> reconnected.events().size() == 2);
+        publish(DOCTOR_ID, 4L);
+        await(() -> reconnected.events().size() == 3);
+
+        assertEquals(List.of("2", "3", "4"), appointmentIds(reconnected));
+        assertEquals(List.of("1", "2", "3", "4"), appointmentIds(first));
+    }
+
+    @Test
+    void reconnectPastTheReplayBufferGetsResync() throws Exception {
+        RecordingEmitter first = subscribe(DOCTOR_ID, null);
+        for (long id = 1; id <= 5; id++) {
+            publish(DOCTOR_ID, id);
+        }
+        await(() -> first.events().size() == 5);
+
+        // Only the last three are kept, so event 1 is too old to continue from
+        RecordingEmitter tooOld = subscribe(DOCTOR_ID, first.events().get(0).id());
+        // An id from a previous run of the application
+        RecordingEmitter otherRun = subscribe(DOCTOR_ID, "0badf00d-4");
+        await(() -> tooOld.frames.size() == 1 && otherRun.frames.size() == 1);
+
+        assertTrue(tooOld.frames.get(0).contains("event:" + AppointmentEventHub.RESYNC));
+        assertTrue(otherRun.frames.get(0).contains("event:" + AppointmentEventHub.RESYNC));
+    }
+
+    @Test
+    void slowDashboardIsClosedWithoutHoldingUpTheOthers() throws Exception {
+        RecordingEmitter slow = subscribe(DOCTOR_ID, null);
+        RecordingEmitter fast = subscribe(DOCTOR_ID, null);
+        slow.block();
+
+        // Paced by the fast dashboard, so only the slow one can fall behind
+        for (int id = 1; id <= 15; id++) {
+            publish(DOCTOR_ID, id);
+            int sent = id;
+            await(() -> fast.events().size() == sent);
+        }
+        await(() -> hub.getSubscriberCount() == 1);
+
+        slow.release();
+        await(() -> slow.completed);
+        // The one write in progress when it fell behind; everything queued after it was skipped
+        assertTrue(slow.frames.size() <= 1);
+    }
+
+    @Test
+    void slowLoadOnlyHoldsUpItsOwnDoctor() throws Exception {
+        RecordingEmitter waiting = subscribe(DOCTOR_ID, null);
+        RecordingEmitter other = subscribe(8L, null);
+        CountDownLatch loadGate = new CountDownLatch(1);
+
+        hub.publish(AppointmentEventHub.BOOKED, DOCTOR_ID, () -> {
+            await(loadGate);
+            return appointment(DOCTOR_ID, 1L);
+        });
+        publish(8L, 2L);
+        await(() -> other.events().size() == 1);
+        assertEquals(0, waiting.events().size());
+
+        loadGate.countDown();
+        await(() -> waiting.events().size() == 1);
+    }
+
+    private RecordingEmitter subscribe(long doctorId, String lastEventId) {
+        int before = emitters.size();
+        hub.subscribe(doctorId, lastEventId);
+        return emitters.get(before);
+    }
+
+    private void publish(long doctorId, long appointmentId) {
+        hub.publish(AppointmentEventHub.BOOKED, doctorId, () -> appointment(doctorId, appointmentId));
+    }
+
+    private static AppointmentDTO appointment(long doctorId, long appointmentId) {
+        return new AppointmentDTO(appointmentId, doctorId, "Doctor " + doctorId, 42L, "Patient", "p@clinic.test",
+                "0123456789", "1 Main Street", LocalDateTime.of(2030, 1, 2, 9, 0), 0);
+    }
+
+    private static List<String> appointmentIds(RecordingEmitter emitter) {
+        List<String> ids = new ArrayList<>();
+        for (String frame : emitter.frames) {
+            Matcher matcher = Pattern.compile("\"id\":(\\d+)").matcher(frame);
+            if (frame.contains("event:") && matcher.find()) {
+                ids.add(matcher.group(1));
+            }
+        }
+        return ids;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Sent(String id, String name) {
+    }
+
+    // Keeps every frame written to it as text; block() makes writes hang like a client that stopped reading
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<String> frames = new CopyOnWriteArrayList<>();
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+        private volatile boolean completed;
+
+        @Override
+        public void send(Set<DataWithMediaType> items) throws IOException {
+            await(gate);
+            StringBuilder frame = new StringBuilder();
+            items.forEach(item -> frame.append(item.getData()));
+            frames.add(frame.toString());
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            completed = true;
+        }
+
+        void block() {
+            gate = new CountDownLatch(1);
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        List<Sent> events() {
+            List<Sent> events = new ArrayList<>();
+            for (String frame : frames) {
+                Matcher matcher = EVENT.matcher(frame);
+                if (matcher.find()) {
+                    events.add(new Sent(matcher.group(1), matcher.group(2)));
+                }
+            }
+            return events;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AppointmentRepository;
+
+import jakarta.validation.Validator;
+
+class AppointmentServiceConcurrencyTest {
+
+    private static final int DOCTORS = 50;
+    private static final int SLOTS_PER_DOCTOR = 8;
+    private static final int COMPETITORS_PER_SLOT = 25;
+
+    @Test
+    void competingBookingsProduceExactlyOneWinnerPerSlot() throws Exception {
+        // Stand-in for the appointment table: a check-then-insert that races unless the caller serializes it
+        Set<String> booked = ConcurrentHashMap.newKeySet();
+        Map<String, AtomicInteger> inserts = new ConcurrentHashMap<>();
+
+        com.project.back_end.services.Service service = mock(com.project.back_end.services.Service.class,
+                withSettings().stubOnly());
+        when(service.validateAppointment(any())).thenAnswer(inv -> {
+            Appointment a = inv.getArgument(0);
+            Thread.yield();
+            return booked.contains(key(a)) ? 0 : 1;
+        });
+        AppointmentRepository appointmentRepository = mock(AppointmentRepository.class, withSettings().stubOnly());
+        when(appointmentRepository.save(any())).thenAnswer(inv -> {
+            Appointment a = inv.getArgument(0);
+            Thread.yield();
+            inserts.computeIfAbsent(key(a), k -> new AtomicInteger()).incrementAndGet();
+            booked.add(key(a));
+            return a;
+        });
+
+        AppointmentService appointmentService = new AppointmentService(appointmentRepository, service,
+                mock(SlotOccupancyIndex.class, withSettings().stubOnly()),
+                new SlotLocks(4096),
+                mock(Validator.class, withSettings().stubOnly()),
+                mock(AppointmentEventHub.class, withSettings().stubOnly()));
+
+        LocalDateTime day = LocalDateTime.now().plusDays(1).withHour(9).withMinute(0).withSecond(0).withNano(0);
+        List<Appointment> requests = new ArrayList<>();
+        for (long doctorId = 1; doctorId <= DOCTORS; doctorId++) {
+            for (int slot = 0; slot < SLOTS_PER_DOCTOR; slot++) {
+                for (int patient = 0; patient < COMPETITORS_PER_SLOT; patient++) {
+                    requests.add(appointment(doctorId, patient, day.plusHours(slot)));
+                }
+            }
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        Map<String, AtomicInteger> winners = new ConcurrentHashMap<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for (Appointment request : requests) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                if (appointmentService.bookAppointment(request) == 1) {
+                    winners.computeIfAbsent(key(request), k -> new AtomicInteger()).incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        long elapsedNanos = System.nanoTime() - began;
+        pool.shutdown();
+
+        int slots = DOCTORS * SLOTS_PER_DOCTOR;
+        assertEquals(slots, winners.size());
+        winners.forEach((slot, count) -> assertEquals(1, count.get(), "winners for " + slot));
+        inserts.forEach((slot, count) -> assertEquals(1, count.get(), "inserts for " + slot));
+
+        System.out.printf("%d competing bookings over %d slots in %.1f ms (%.0f bookings/s)%n",
+                requests.size(), slots, elapsedNanos / 1e6, requests.size() / (elapsedNanos / 1e9));
+    }
+
+    private static Appointment appointment(long doctorId, long patientId, LocalDateTime time) {
+        Doctor doctor = new Doctor();
+        doctor.setId(doctorId);
+        Patient patient = new Patient();
+        patient.setId(patientId);
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(doctor);
+        appointment.setPatient(patient);
+        appointment.setAppointmentTime(time);
+        return appointment;
+    }
+
+    private static String key(Appointment appointment) {
+        return appointment.getDoctor().getId() + "@" + appointment.getAppointmentTime();
+    }
+}
@@ -0,0 +1,96 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AppointmentRepository;
+
+import jakarta.validation.Validator;
+
+class AppointmentServiceTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.now().plusDays(1).withHour(9).withMinute(0)
+            .withSecond(0).withNano(0);
+
+    private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+    private final SlotOccupancyIndex slotIndex = mock(SlotOccupancyIndex.class);
+    private final AppointmentService appointmentService;
+
+    AppointmentServiceTest() {
+        com.project.back_end.services.Service service = mock(com.project.back_end.services.Service.class,
+                withSettings().stubOnly());
+        when(service.validateAppointment(any())).thenReturn(1);
+        appointmentService = new AppointmentService(appointmentRepository, service, slotIndex, new SlotLocks(64),
+                mock(Validator.class, withSettings().stubOnly()),
+                mock(AppointmentEventHub.class, withSettings().stubOnly()));
+    }
+
+    @Test
+    void unknownPatientIsNotReportedAsATakenSlot() {
+        // What MySQL reports for a patient_id with no patient row
+        when(appointmentRepository.save(any())).thenThrow(violation("Cannot add or update a child row",
+                "FK4apif2ewfyf14077ichee8g06"));
+
+        assertEquals(-3, appointmentService.bookAppointment(appointment(7L, 999_999L)));
+        verify(slotIndex, never()).markBooked(any(), any());
+    }
+
+    @Test
+    void slotKeyViolationIsATakenSlot() {
+        when(appointmentRepository.save(any())).thenThrow(violation("Duplicate entry",
+                "appointment." + Appointment.SLOT_CONSTRAINT));
+
+        assertEquals(0, appointmentService.bookAppointment(appointment(7L, 41L)));
+        verify(slotIndex).markBooked(7L, TIME);
+    }
+
+    @Test
+    void bulkRetryReportsUnknownPatientAsInvalid() {
+        when(appointmentRepository.saveAll(any())).thenThrow(violation("Cannot add or update a child row",
+                "FK4apif2ewfyf14077ichee8g06"));
+        when(appointmentRepository.save(any())).thenThrow(violation("Cannot add or update a child row",
+                "FK4apif2ewfyf14077ichee8g06"));
+
+        List<Map<String, Object>> results = appointmentService.bookAppointments(List.of(appointment(7L, 999_999L)));
+
+        assertEquals("invalid", results.get(0).get("status"));
+        assertEquals(AppointmentService.INVALID_REFERENCE, results.get(0).get("message"));
+        verify(slotIndex, never()).markBooked(any(), any());
+    }
+
+    // Shaped like Spring's translation of a failed insert: the Hibernate exception carries the constraint name
+    private static DataIntegrityViolationException violation(String message, String constraint) {
+        ConstraintViolationException cause = new ConstraintViolationException(message,
+                new SQLIntegrityConstraintViolationException(message), "insert into appointment ...", constraint);
+        return new DataIntegrityViolationException(message, cause);
+    }
+
+    private static Appointment appointment(long doctorId, long patientId) {
+        Doctor doctor = new Doctor();
+        doctor.setId(doctorId);
+        Patient patient = new Patient();
+        patient.setId(patientId);
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(doctor);
+        appointment.setPatient(patient);
+        appointment.setAppointmentTime(TIME);
+        return appointment;
+    }
+}
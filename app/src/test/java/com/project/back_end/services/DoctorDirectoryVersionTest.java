@@ -0,0 +1,63 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class DoctorDirectoryVersionTest {
+
+    // The version table as the stubbed JdbcTemplate sees it
+    private final AtomicLong table = new AtomicLong(5);
+    private final AtomicInteger reads = new AtomicInteger();
+    private final DoctorDirectoryVersion directoryVersion;
+
+    DoctorDirectoryVersionTest() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class, withSettings().stubOnly());
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenAnswer(call -> {
+            reads.incrementAndGet();
+            return table.get();
+        });
+        when(jdbcTemplate.update(anyString())).thenAnswer(call -> {
+            table.incrementAndGet();
+            return 1;
+        });
+        directoryVersion = new DoctorDirectoryVersion(jdbcTemplate);
+    }
+
+    @Test
+    void tagIsServedWithoutReadingTheTableAgain() {
+        assertEquals("\"5\"", directoryVersion.eTag());
+        assertEquals("\"5\"", directoryVersion.eTag());
+        assertEquals(1, reads.get());
+
+        // Another instance wrote; only publishing the polled version moves the tag
+        table.incrementAndGet();
+        assertEquals(5, directoryVersion.current());
+        directoryVersion.publish(directoryVersion.read());
+        assertEquals(6, directoryVersion.current());
+    }
+
+    @Test
+    void ownWriteMovesTheTagOnlyOncePublished() {
+        assertEquals(5, directoryVersion.current());
+
+        long version = directoryVersion.bump();
+        assertEquals(6, version);
+        assertEquals(5, directoryVersion.current());
+
+        directoryVersion.publish(version);
+        assertEquals(6, directoryVersion.current());
+        // A poll that read the table before the write must not move it back
+        directoryVersion.publish(5);
+        assertEquals(6, directoryVersion.current());
+    }
+}
@@ -0,0 +1,180 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.DoctorRepository;
+
+class DoctorSearchIndexTest {
+
+    private static final String[] FIRST = { "Ann", "Anna", "Bob", "Chidi", "Dana", "Ifeoma", "Li", "Oluwaseun" };
+    private static final String[] LAST = { "Lee", "Okafor", "Adeyemi", "Smith", "Annan", "O'Brien", "Ng" };
+    private static final String[] SPECIALTIES = { "Cardiology", "Dermatology", "Pediatrics" };
+    private static final String[] TIMES = { "09:00-10:00", "11:30-12:30", "12:00-13:00", "16:00-17:00" };
+
+    @Test
+    void filterMatchesAPlainScanOfTheDirectory() {
+        Random random = new Random(42);
+        List<Doctor> doctors = new ArrayList<>();
+        for (long id = 1; id <= 300; id++) {
+            doctors.add(randomDoctor(random, id));
+        }
+        DoctorSearchIndex index = new DoctorSearchIndex(repository(doctors), version(new AtomicLong()));
+
+        String[] names = { null, "", "a", "an", "ANN", "nn ok", "o'b", "ng", "zz", "li ng" };
+        String[] specialties = { null, "cardiology", "PEDIATRICS", "surgery" };
+        String[] times = { null, "", "am", "pm" };
+        for (String name : names) {
+            for (String specialty : specialties) {
+                for (String time : times) {
+                    assertEquals(scan(doctors, name, specialty, time), index.filter(name, specialty, time),
+                            name + "/" + specialty + "/" + time);
+                }
+            }
+        }
+    }
+
+    @Test
+    void writesUpdateTheIndexWithoutReloading() {
+        DoctorRepository repository = repository(List.of(doctor(1L, "Ann Lee", "Cardiology", "09:00-10:00")));
+        DoctorSearchIndex index = new DoctorSearchIndex(repository, version(new AtomicLong()));
+        assertEquals(List.of(1L), ids(index.autocomplete("lee", 10)));
+
+        index.put(doctor(2L, "Leela Smith", "Dermatology", "14:00-15:00"));
+        index.put(doctor(3L, "Dana Annan", "Pediatrics", "10:00-11:00"));
+        index.put(doctor(1L, "Ann Okafor", "Cardiology", "09:00-10:00"));
+        assertEquals(List.of(2L), ids(index.autocomplete("lee", 10)));
+        // Names starting with the prefix come before names with a later word starting with it
+        assertEquals(List.of(1L, 3L), ids(index.autocomplete("ANN", 10)));
+        assertEquals(List.of(1L), ids(index.autocomplete("ann ok", 10)));
+        assertEquals(List.of(), ids(index.autocomplete(" ", 10)));
+
+        index.remove(2L);
+        assertEquals(List.of(), ids(index.autocomplete("lee", 10)));
+        assertEquals(List.of(1L, 3L), ids(index.filter("an", null, "am")));
+        verify(repository, times(1)).findAllWithAvailableTimes();
+    }
+
+    @Test
+    void manyWritesKeepMatchingAPlainScan() {
+        Random random = new Random(7);
+        Map<Long, Doctor> directory = new HashMap<>();
+        for (long id = 1; id <= 200; id++) {
+            directory.put(id, randomDoctor(random, id));
+        }
+        DoctorSearchIndex index = new DoctorSearchIndex(repository(new ArrayList<>(directory.values())),
+                version(new AtomicLong()));
+        index.filter(null, null, null);
+
+        // Enough writes to distinct doctors to fold the recent ones into a new full build on the way
+        for (int write = 1; write <= 3 * DoctorSearchIndex.MAX_RECENT; write++) {
+            long id = 1 + random.nextInt(1000);
+            if (random.nextInt(4) == 0) {
+                directory.remove(id);
+                index.remove(id);
+            } else {
+                Doctor doctor = randomDoctor(random, id);
+                directory.put(id, doctor);
+                index.put(doctor);
+            }
+            if (write % 50 == 0) {
+                List<Doctor> doctors = new ArrayList<>(directory.values());
+                for (String name : new String[] { null, "an", "lee", "o'b" }) {
+                    assertEquals(scan(doctors, name, null, "am"), index.filter(name, null, "am"), name);
+                }
+                assertEquals(ids(prefixScan(doctors, "ann")), ids(index.autocomplete("ann", 1000)));
+            }
+        }
+    }
+
+    @Test
+    void refreshReloadsOnlyWhenTheDirectoryVersionMoved() {
+        List<Doctor> doctors = new ArrayList<>(List.of(doctor(1L, "Ann Lee", "Cardiology", "09:00-10:00")));
+        DoctorRepository repository = repository(doctors);
+        AtomicLong version = new AtomicLong(5);
+        DoctorSearchIndex index = new DoctorSearchIndex(repository, version(version));
+
+        index.refresh();
+        verify(repository, times(0)).findAllWithAvailableTimes();
+        assertEquals(List.of(1L), ids(index.filter(null, null, null)));
+
+        // Another instance adds a doctor
+        doctors.add(doctor(2L, "Bob Smith", "Dermatology", "14:00-15:00"));
+        index.refresh();
+        assertEquals(List.of(1L), ids(index.filter(null, null, null)));
+
+        version.incrementAndGet();
+        index.refresh();
+        assertEquals(List.of(1L, 2L), ids(index.filter(null, null, null)));
+        assertEquals(List.of(2L), ids(index.autocomplete("bob", 10)));
+        verify(repository, times(2)).findAllWithAvailableTimes();
+    }
+
+    private static DoctorRepository repository(List<Doctor> doctors) {
+        DoctorRepository repository = mock(DoctorRepository.class);
+        when(repository.findAllWithAvailableTimes()).thenReturn(doctors);
+        return repository;
+    }
+
+    // What the SQL filter returns, in id order
+    private static List<Doctor> scan(List<Doctor> doctors, String name, String specialty, String time) {
+        return doctors.stream()
+                .filter(d -> name == null
+                        || d.getName().toLowerCase(Locale.ROOT).contains(name.toLowerCase(Locale.ROOT)))
+                .filter(d -> specialty == null || d.getSpecialty().equalsIgnoreCase(specialty))
+                .filter(d -> time == null || time.isBlank() || d.getAvailabilitySlots().stream()
+                        .anyMatch(slot -> slot.isMorning() == time.equalsIgnoreCase("am")))
+                .sorted(Comparator.comparing(Doctor::getId))
+                .toList();
+    }
+
+    // What autocomplete returns: a name word starts with the prefix; whole-name matches first, then by name and id
+    private static List<Doctor> prefixScan(List<Doctor> doctors, String prefix) {
+        return doctors.stream()
+                .filter(d -> (" " + d.getName().toLowerCase(Locale.ROOT)).contains(" " + prefix))
+                .sorted(Comparator.comparing((Doctor d) -> !d.getName().toLowerCase(Locale.ROOT).startsWith(prefix))
+                        .thenComparing(d -> d.getName().toLowerCase(Locale.ROOT))
+                        .thenComparing(Doctor::getId))
+                .toList();
+    }
+
+    private static DoctorDirectoryVersion version(AtomicLong version) {
+        DoctorDirectoryVersion directoryVersion = mock(DoctorDirectoryVersion.class);
+        when(directoryVersion.read()).thenAnswer(call -> version.get());
+        return directoryVersion;
+    }
+
+    private static Doctor randomDoctor(Random random, long id) {
+        return doctor(id, FIRST[random.nextInt(FIRST.length)] + " " + LAST[random.nextInt(LAST.length)],
+                SPECIALTIES[random.nextInt(SPECIALTIES.length)], TIMES[random.nextInt(TIMES.length)]);
+    }
+
+    private static Doctor doctor(long id, String name, String specialty, String time) {
+        Doctor doctor = new Doctor();
+        doctor.setId(id);
+        doctor.setName(name);
+        doctor.setSpecialty(specialty);
+        doctor.setAvailableTimes(List.of(time));
+        return doctor;
+    }
+
+    private static List<Long> ids(List<Doctor> doctors) {
+        return doctors.stream().map(Doctor::getId).toList();
+    }
+}
@@ -0,0 +1,196 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.project.back_end.models.Prescription;
+import com.project.back_end.models.PrescriptionOutbox;
+import com.project.back_end.repo.PrescriptionOutboxRepository;
+
+class PrescriptionServiceTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final BulkOperations bulk = mock(BulkOperations.class, withSettings().stubOnly());
+    private final List<PrescriptionOutbox> due = new ArrayList<>();
+    private final List<PrescriptionOutbox> deleted = new ArrayList<>();
+    private final List<PrescriptionOutbox> queued = new ArrayList<>();
+    // Transactions begun and not yet committed on the stubbed transaction manager
+    private final AtomicInteger openTransactions = new AtomicInteger();
+    private final AppointmentService appointmentService = mock(AppointmentService.class, withSettings().stubOnly());
+
+    @Test
+    void prescriptionForAnUnknownAppointmentIsNotQueued() {
+        PrescriptionService service = service();
+        when(appointmentService.changeStatus(999L)).thenReturn(false);
+
+        ResponseEntity<Map<String, String>> response = service.savePrescription(prescription(999L));
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals(List.of(), queued);
+    }
+
+    @Test
+    void prescriptionIsQueuedWithTheStatusChange() {
+        PrescriptionService service = service();
+        when(appointmentService.changeStatus(5L)).thenReturn(true);
+
+        ResponseEntity<Map<String, String>> response = service.savePrescription(prescription(5L));
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(List.of(5L), queued.stream().map(PrescriptionOutbox::getAppointmentId).toList());
+    }
+
+    @Test
+    void rowsAreClaimedAndNoTransactionIsOpenDuringTheMongoWrite() {
+        PrescriptionService service = service();
+        due.addAll(List.of(row(1), row(2)));
+        List<Integer> openDuringWrite = new ArrayList<>();
+        when(bulk.execute()).thenAnswer(call -> {
+            openDuringWrite.add(openTransactions.get());
+            due.forEach(row -> assertTrue(row.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(30))));
+            return null;
+        });
+
+        service.relayOutboxBatch(10);
+
+        assertEquals(List.of(0), openDuringWrite);
+        assertEquals(List.of(1L, 2L), ids(deleted));
+    }
+
+    @Test
+    void relayedRowsAreDeleted() {
+        PrescriptionService service = service();
+        due.addAll(List.of(row(1), row(2), row(3)));
+
+        assertEquals(3, service.relayOutboxBatch(10));
+
+        assertEquals(List.of(1L, 2L, 3L), ids(deleted));
+    }
+
+    @Test
+    void onlyTheRowsTheBulkWriteRejectedAreKept() {
+        PrescriptionService service = service();
+        PrescriptionOutbox first = row(1);
+        PrescriptionOutbox rejected = row(2);
+        PrescriptionOutbox third = row(3);
+        due.addAll(List.of(first, rejected, third));
+        when(bulk.execute()).thenThrow(bulkFailure(1, "document failed validation"));
+
+        assertEquals(3, service.relayOutboxBatch(10));
+
+        assertEquals(List.of(1L, 3L), ids(deleted));
+        assertEquals(1, rejected.getAttempts());
+        assertEquals("document failed validation", rejected.getLastError());
+        assertEquals(PrescriptionOutbox.PENDING, rejected.getStatus());
+        assertTrue(rejected.getNextAttemptAt().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    void wholeBatchIsKeptWhenTheWriteFailsOutright() {
+        PrescriptionService service = service();
+        due.addAll(List.of(row(1), row(2)));
+        when(bulk.execute()).thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        service.relayOutboxBatch(10);
+
+        assertEquals(List.of(), deleted);
+        due.forEach(row -> assertEquals(1, row.getAttempts()));
+    }
+
+    @Test
+    void rowIsDeadLetteredAfterMaxAttempts() {
+        PrescriptionService service = service();
+        PrescriptionOutbox row = row(1);
+        due.add(row);
+        when(bulk.execute()).thenThrow(bulkFailure(0, "document too large"));
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            assertEquals(PrescriptionOutbox.PENDING, row.getStatus());
+            service.relayOutboxBatch(10);
+        }
+
+        assertEquals(PrescriptionOutbox.FAILED, row.getStatus());
+        assertEquals(MAX_ATTEMPTS, row.getAttempts());
+        assertEquals(List.of(), deleted);
+    }
+
+    private PrescriptionService service() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class, withSettings().stubOnly());
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), any(Class.class))).thenReturn(bulk);
+        PrescriptionOutboxRepository outboxRepository = mock(PrescriptionOutboxRepository.class,
+                withSettings().stubOnly());
+        // The real query only returns pending rows that are due; the tests drive the batch themselves
+        when(outboxRepository.lockDue(any(), any())).thenAnswer(call -> List.copyOf(due));
+        doAnswer(call -> deleted.addAll(call.getArgument(0))).when(outboxRepository).deleteAllInBatch(anyList());
+        when(outboxRepository.save(any())).thenAnswer(call -> {
+            queued.add(call.getArgument(0));
+            return call.getArgument(0);
+        });
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class,
+                withSettings().stubOnly());
+        when(transactionManager.getTransaction(any())).thenAnswer(call -> {
+            openTransactions.incrementAndGet();
+            return new SimpleTransactionStatus();
+        });
+        doAnswer(call -> openTransactions.decrementAndGet()).when(transactionManager).commit(any());
+
+        PrescriptionService service = new PrescriptionService(null, outboxRepository, appointmentService,
+                mongoTemplate, new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(service, "claimSeconds", 60L);
+        ReflectionTestUtils.setField(service, "maxBackoffSeconds", 300L);
+        ReflectionTestUtils.setField(service, "maxAttempts", MAX_ATTEMPTS);
+        return service;
+    }
+
+    private static Prescription prescription(long appointmentId) {
+        return new Prescription("Patient " + appointmentId, "Paracetamol", "500mg", "After meals", appointmentId);
+    }
+
+    private static PrescriptionOutbox row(long id) {
+        PrescriptionOutbox row = new PrescriptionOutbox(prescription(id));
+        ReflectionTestUtils.setField(row, "id", id);
+        return row;
+    }
+
+    // What an unordered bulk write throws when the operation at index failed and the others went through
+    private static BulkOperationException bulkFailure(int index, String message) {
+        BulkWriteError error = new BulkWriteError(121, message, new BsonDocument(), index);
+        return new BulkOperationException(message, new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(error), null, new ServerAddress(), Set.of()));
+    }
+
+    private static List<Long> ids(List<PrescriptionOutbox> rows) {
+        return rows.stream().map(PrescriptionOutbox::getId).toList();
+    }
+}
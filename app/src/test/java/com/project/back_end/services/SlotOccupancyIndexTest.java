@@ -0,0 +1,174 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.project.back_end.models.AvailabilitySlot;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+
+class SlotOccupancyIndexTest {
+
+    private static final long DOCTOR_ID = 7L;
+    private static final int READERS = 32;
+
+    private final LocalDate day = LocalDate.now().plusDays(1);
+    private final LocalDateTime nineOClock = day.atTime(9, 0);
+
+    // Counting stand-ins for the two queries the index runs; each call can be held until the test lets it finish
+    private final AtomicInteger slotQueries = new AtomicInteger();
+    private final AtomicInteger dayQueries = new AtomicInteger();
+    private final AtomicReference<CountDownLatch> dayQueryGate = new AtomicReference<>(new CountDownLatch(0));
+    private final CountDownLatch dayQueryStarted = new CountDownLatch(1);
+    private final List<LocalDateTime> booked = new ArrayList<>();
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(READERS);
+
+    @AfterEach
+    void shutDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void concurrentColdReadsShareOneLoad() throws Exception {
+        SlotOccupancyIndex index = index(60_000);
+        CountDownLatch gate = new CountDownLatch(1);
+        dayQueryGate.set(gate);
+
+        List<Thread> readers = new ArrayList<>();
+        List<Future<List<String>>> results = new ArrayList<>();
+        for (int i = 0; i < READERS; i++) {
+            results.add(pool.submit(() -> {
+                synchronized (readers) {
+                    readers.add(Thread.currentThread());
+                }
+                return index.getAvailableSlots(DOCTOR_ID, day);
+            }));
+        }
+        // Hold the one running load until every other reader is parked on it
+        awaitAllWaiting(readers);
+        gate.countDown();
+
+        for (Future<List<String>> result : results) {
+            assertEquals(List.of("09:00-10:00", "10:00-11:00"), result.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, slotQueries.get());
+        assertEquals(1, dayQueries.get());
+    }
+
+    @Test
+    void loadThatRacedWithABookingIsNotKept() throws Exception {
+        SlotOccupancyIndex index = index(60_000);
+        CountDownLatch gate = new CountDownLatch(1);
+        dayQueryGate.set(gate);
+
+        // The load reads the day before the booking lands, then the booking is applied while it is still running
+        Future<List<String>> racing = pool.submit(() -> index.getAvailableSlots(DOCTOR_ID, day));
+        assertTrue(dayQueryStarted.await(10, TimeUnit.SECONDS));
+        synchronized (booked) {
+            booked.add(nineOClock);
+        }
+        index.markBooked(DOCTOR_ID, nineOClock);
+        gate.countDown();
+
+        // The racing read answers from what it loaded, but the next one must not trust that load
+        assertEquals(List.of("09:00-10:00", "10:00-11:00"), racing.get(10, TimeUnit.SECONDS));
+        assertEquals(0, index.checkSlot(DOCTOR_ID, nineOClock));
+        assertEquals(List.of("10:00-11:00"), index.getAvailableSlots(DOCTOR_ID, day));
+        assertEquals(2, dayQueries.get());
+    }
+
+    @Test
+    void loadedDayIsReadAgainAfterItExpires() throws Exception {
+        SlotOccupancyIndex index = index(50);
+        assertEquals(1, index.checkSlot(DOCTOR_ID, nineOClock));
+
+        // Booked through another instance: this one only sees it once its copy of the day expires
+        synchronized (booked) {
+            booked.add(nineOClock);
+        }
+        Thread.sleep(100);
+
+        assertEquals(0, index.checkSlot(DOCTOR_ID, nineOClock));
+        assertEquals(2, dayQueries.get());
+    }
+
+    @Test
+    void unknownDoctorIsNotRemembered() {
+        SlotOccupancyIndex index = index(60_000);
+
+        assertEquals(-1, index.checkSlot(99L, nineOClock));
+        assertNull(index.getAvailableSlots(99L, day));
+
+        assertEquals(2, slotQueries.get());
+        assertTrue(((Map<?, ?>) ReflectionTestUtils.getField(index, "doctors")).isEmpty());
+    }
+
+    private SlotOccupancyIndex index(long ttlMillis) {
+        Doctor doctor = new Doctor();
+        doctor.setId(DOCTOR_ID);
+        doctor.setAvailabilitySlots(new ArrayList<>(List.of(
+                new AvailabilitySlot(9 * 60, 60, null), new AvailabilitySlot(10 * 60, 60, null))));
+
+        DoctorRepository doctorRepository = mock(DoctorRepository.class, withSettings().stubOnly());
+        when(doctorRepository.findWithAvailableTimesById(any())).thenAnswer(inv -> {
+            slotQueries.incrementAndGet();
+            return DOCTOR_ID == (Long) inv.getArgument(0) ? Optional.of(doctor) : Optional.empty();
+        });
+        AppointmentRepository appointmentRepository = mock(AppointmentRepository.class, withSettings().stubOnly());
+        when(appointmentRepository.findAppointmentTimesByDoctorIdAndAppointmentTimeBetween(any(), any(), any()))
+                .thenAnswer(inv -> {
+                    dayQueries.incrementAndGet();
+                    List<LocalDateTime> times;
+                    synchronized (booked) {
+                        times = new ArrayList<>(booked);
+                    }
+                    dayQueryStarted.countDown();
+                    dayQueryGate.get().await(10, TimeUnit.SECONDS);
+                    return times;
+                });
+
+        SlotOccupancyIndex index = new SlotOccupancyIndex(doctorRepository, appointmentRepository);
+        ReflectionTestUtils.setField(index, "ttlMillis", ttlMillis);
+        ReflectionTestUtils.setField(index, "maxDays", 62);
+        return index;
+    }
+
+    private static void awaitAllWaiting(List<Thread> threads) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            synchronized (threads) {
+                if (threads.size() == READERS && threads.stream()
+                        .allMatch(t -> t.getState() == Thread.State.WAITING || t.getState() == Thread.State.TIMED_WAITING)) {
+                    return;
+                }
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("readers did not all block on the shared load");
+    }
+}
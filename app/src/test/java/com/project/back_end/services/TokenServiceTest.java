@@ -0,0 +1,163 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.project.back_end.DTO.AuthenticatedUser;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.AdminRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+class TokenServiceTest {
+
+    private static final String SECRET = "test-secret-with-at-least-256-bits-of-key-material";
+    private static final long DOCTOR_ID = 7L;
+    private static final String EMAIL = "doctor7@clinic.test";
+
+    // The doctor table as the stubbed repository sees it; tests change or remove the row to mimic other writers
+    private final Map<Long, Doctor> doctors = new HashMap<>();
+    private final AtomicInteger doctorReads = new AtomicInteger();
+
+    TokenServiceTest() {
+        Doctor doctor = new Doctor();
+        doctor.setId(DOCTOR_ID);
+        doctor.setEmail(EMAIL);
+        doctors.put(DOCTOR_ID, doctor);
+    }
+
+    @Test
+    void tokenWithClaimsIsCheckedByIdOnceAndThenCached() {
+        TokenService tokenService = tokenService(300);
+        String token = tokenService.generateToken(EMAIL, "doctor", DOCTOR_ID);
+
+        AuthenticatedUser first = tokenService.authenticate(token);
+        AuthenticatedUser second = tokenService.authenticate(token);
+
+        assertEquals("doctor", first.getRole());
+        assertEquals(DOCTOR_ID, first.getId());
+        assertEquals(EMAIL, second.getSubject());
+        assertEquals(1, doctorReads.get());
+    }
+
+    @Test
+    void roleMismatchIsRejected() {
+        TokenService tokenService = tokenService(300);
+        String token = tokenService.generateToken(EMAIL, "doctor", DOCTOR_ID);
+
+        assertTrue(tokenService.validateToken(token, "doctor"));
+        assertFalse(tokenService.validateToken(token, "admin"));
+        assertFalse(tokenService.validateToken(token, "patient"));
+        // Claiming another role for the doctor's id finds no such admin
+        assertNull(tokenService.authenticate(tokenService.generateToken(EMAIL, "admin", DOCTOR_ID)));
+    }
+
+    @Test
+    void legacyTokenWithoutClaimsIsResolvedBySubject() {
+        TokenService tokenService = tokenService(300);
+
+        AuthenticatedUser user = tokenService.authenticate(legacyToken(EMAIL));
+
+        assertEquals("doctor", user.getRole());
+        assertEquals(DOCTOR_ID, user.getId());
+        assertNull(tokenService.authenticate(legacyToken("nobody@clinic.test")));
+    }
+
+    @Test
+    void invalidatedAccountIsRejectedRightAway() {
+        TokenService tokenService = tokenService(300);
+        String token = tokenService.generateToken(EMAIL, "doctor", DOCTOR_ID);
+        String legacy = legacyToken(EMAIL);
+        assertEquals(DOCTOR_ID, tokenService.authenticate(token).getId());
+        assertEquals(DOCTOR_ID, tokenService.authenticate(legacy).getId());
+
+        doctors.remove(DOCTOR_ID);
+        tokenService.invalidate(EMAIL);
+
+        assertNull(tokenService.authenticate(token));
+        assertNull(tokenService.authenticate(legacy));
+    }
+
+    @Test
+    void accountDeletedElsewhereIsRejectedOnceTheCacheEntryExpires() {
+        // A TTL of zero stands for an entry that has expired: nothing here calls invalidate, as on another instance
+        TokenService tokenService = tokenService(0);
+        String token = tokenService.generateToken(EMAIL, "doctor", DOCTOR_ID);
+        assertEquals(DOCTOR_ID, tokenService.authenticate(token).getId());
+
+        doctors.remove(DOCTOR_ID);
+
+        assertNull(tokenService.authenticate(token));
+    }
+
+    @Test
+    void changedEmailNoLongerMatchesTheToken() {
+        TokenService tokenService = tokenService(0);
+        String token = tokenService.generateToken(EMAIL, "doctor", DOCTOR_ID);
+
+        doctors.get(DOCTOR_ID).setEmail("deleted-7:" + EMAIL);
+
+        assertNull(tokenService.authenticate(token));
+    }
+
+    @Test
+    void tamperedOrMissingTokenIsRejected() {
+        TokenService tokenService = tokenService(300);
+        String token = tokenService.generateToken(EMAIL, "doctor", DOCTOR_ID);
+
+        assertNull(tokenService.authenticate(token.substring(0, token.length() - 2) + "xx"));
+        assertNull(tokenService.authenticate(""));
+        assertNull(tokenService.authenticate(null));
+    }
+
+    private TokenService tokenService(long cacheTtlSeconds) {
+        DoctorRepository doctorRepository = mock(DoctorRepository.class, withSettings().stubOnly());
+        when(doctorRepository.findById(any())).thenAnswer(call -> {
+            doctorReads.incrementAndGet();
+            return Optional.ofNullable(doctors.get(call.<Long>getArgument(0)));
+        });
+        when(doctorRepository.findByEmail(any())).thenAnswer(call -> doctors.values().stream()
+                .filter(d -> d.getEmail().equals(call.getArgument(0)))
+                .findFirst()
+                .orElse(null));
+        AdminRepository adminRepository = mock(AdminRepository.class, withSettings().stubOnly());
+        when(adminRepository.findById(any())).thenReturn(Optional.empty());
+        PatientRepository patientRepository = mock(PatientRepository.class, withSettings().stubOnly());
+        when(patientRepository.findById(any())).thenReturn(Optional.empty());
+
+        TokenService tokenService = new TokenService(adminRepository, doctorRepository, patientRepository);
+        ReflectionTestUtils.setField(tokenService, "secret", SECRET);
+        ReflectionTestUtils.setField(tokenService, "cacheMaxSize", 100);
+        ReflectionTestUtils.setField(tokenService, "cacheTtlSeconds", cacheTtlSeconds);
+        ReflectionTestUtils.invokeMethod(tokenService, "init");
+        return tokenService;
+    }
+
+    // A token with only a subject, as issued before the role claims were added
+    private static String legacyToken(String subject) {
+        return Jwts.builder()
+                .subject(subject)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .compact();
+    }
+}